@@ -0,0 +1,49 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Spending per category: pre-aggregating the table into the spending cube (the work the old
+ * {@code aggregateSpending} did on every filter), and the per-filter totals query on the cube.
+ */
+@State(Scope.Benchmark)
+public class AggregateBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int transactions;
+
+    private Object table;
+    private Object spendingCube;
+    private long monthStart;
+    private long monthEnd;
+
+    @Setup
+    public void setUp() {
+        table = Tracker.syntheticTable(transactions, 42);
+        spendingCube = Tracker.buildSpendingCube(table);
+        monthStart = LocalDate.of(2023, 6, 1).toEpochDay();
+        monthEnd = LocalDate.of(2023, 6, 30).toEpochDay();
+    }
+
+    @Benchmark
+    public Object buildSpendingCube() {
+        return Tracker.buildSpendingCube(table);
+    }
+
+    @Benchmark
+    public Map<String, Long> totalsAll() {
+        return Tracker.cubeTotals(spendingCube, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public Map<String, Long> totalsMonth() {
+        return Tracker.cubeTotals(spendingCube, monthStart, monthEnd);
+    }
+}
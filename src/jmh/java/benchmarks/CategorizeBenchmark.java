@@ -0,0 +1,73 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Merchant categorisation over a 1M-description corpus: the Aho-Corasick automaton on its own
+ * (cost independent of the number of rules) and with the memo cache in front of it. Half of the
+ * descriptions name one of the rules' merchants, the other half are merchants no rule knows.
+ * Scores are descriptions per second.
+ */
+@State(Scope.Benchmark)
+public class CategorizeBenchmark {
+
+    private static final int DESCRIPTIONS = 1_000_000;
+
+    @Param({"100", "1000", "10000"})
+    public int rules;
+
+    private Object categorizer;
+    private Object uncachedCategorizer;
+    private String[] descriptions;
+
+    @Setup
+    public void setUp() {
+        List<String> keywords = new ArrayList<>(rules);
+        List<String> categories = new ArrayList<>(rules);
+        for (int i = 0; i < rules; i++) {
+            keywords.add(merchant(i) + (i % 3 == 0 ? " store" : ""));
+            categories.add("Category " + (i % 40));
+        }
+        categorizer = Tracker.newCategorizer(keywords, categories, 16_384);
+        uncachedCategorizer = Tracker.newCategorizer(keywords, categories, 0);
+
+        Random random = new Random(42);
+        descriptions = new String[DESCRIPTIONS];
+        for (int i = 0; i < DESCRIPTIONS; i++) {
+            int pick = random.nextInt(2 * rules);
+            descriptions[i] = pick < rules
+                    ? "Paid to " + merchant(pick) + " Store Bangalore"
+                    : "Paid to Some Shop " + random.nextInt(20_000);
+        }
+    }
+
+    private static String merchant(int i) {
+        return "Merchant" + Integer.toString(i * 7919, 36);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DESCRIPTIONS)
+    public void automaton(Blackhole blackhole) {
+        for (String description : descriptions) {
+            blackhole.consume(Tracker.classify(uncachedCategorizer, description));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DESCRIPTIONS)
+    public void cached(Blackhole blackhole) {
+        for (String description : descriptions) {
+            blackhole.consume(Tracker.categorize(categorizer, description));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+
+/**
+ * The date filter behind {@code PieChartApp.applyFilter}: parsing the date strings, building the
+ * date index, and resolving a one-month range against it.
+ */
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int transactions;
+
+    private String[] dates;
+    private Object table;
+    private Object dateIndex;
+    private long monthStart;
+    private long monthEnd;
+
+    @Setup
+    public void setUp() {
+        table = Tracker.syntheticTable(transactions, 42);
+        dates = new String[Tracker.tableSize(table)];
+        for (int row = 0; row < dates.length; row++) {
+            dates[row] = new String(Tracker.tableDate(table, row)); // Fresh strings, like a parse produces
+        }
+        dateIndex = Tracker.buildDateIndex(table);
+        // The synthetic statement spans the two years up to Apr 30, 2024
+        monthStart = LocalDate.of(2023, 6, 1).toEpochDay();
+        monthEnd = LocalDate.of(2023, 6, 30).toEpochDay();
+    }
+
+    @Benchmark
+    public void parseDates(Blackhole blackhole) {
+        for (String date : dates) {
+            blackhole.consume(Tracker.parseEpochDay(date));
+        }
+    }
+
+    @Benchmark
+    public Object buildDateIndex() {
+        return Tracker.buildDateIndex(table);
+    }
+
+    @Benchmark
+    public int[] filterMonth() {
+        return Tracker.dateRange(dateIndex, monthStart, monthEnd);
+    }
+}
@@ -0,0 +1,34 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@code App.extractTransactions}: statement text (without the three header lines) to a
+ * transaction table. One operation parses the whole statement.
+ */
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int transactions;
+
+    private String body;
+    private String[] columnNames;
+
+    @Setup
+    public void setUp() {
+        String text = Tracker.syntheticText(transactions, 42);
+        columnNames = Tracker.extractColumnNames(Tracker.columnsLine(text));
+        body = Tracker.body(text);
+        Tracker.muteConsole();
+    }
+
+    @Benchmark
+    public Object extractTransactions() {
+        return Tracker.extractTransactions(body, columnNames);
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Transaction search behind the search box in {@code PieChartApp}: building the index, an exact
+ * transaction ID lookup, a one-letter prefix (the first keystroke, matching most rows) and a
+ * two-word query. Searches list the first 500 rows, as the UI does.
+ */
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    private static final int LIMIT = 500;
+
+    @Param({"100000", "1000000"})
+    public int transactions;
+
+    private Object table;
+    private Object searchIndex;
+    private String transactionId;
+
+    @Setup
+    public void setUp() {
+        Tracker.muteConsole();
+        table = Tracker.syntheticTable(transactions, 42);
+        searchIndex = Tracker.newSearchIndex(table);
+        transactionId = Tracker.tableTransactionId(table, Tracker.tableSize(table) / 2);
+    }
+
+    @Benchmark
+    public Object buildIndex() {
+        return Tracker.newSearchIndex(table);
+    }
+
+    @Benchmark
+    public Object transactionId() {
+        return Tracker.search(searchIndex, transactionId, LIMIT);
+    }
+
+    @Benchmark
+    public Object firstKeystroke() {
+        return Tracker.search(searchIndex, "p", LIMIT);
+    }
+
+    @Benchmark
+    public Object twoWords() {
+        return Tracker.search(searchIndex, "paid swig", LIMIT);
+    }
+}
@@ -0,0 +1,273 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entry points of the application for the benchmarks.
+ * The application classes are in the default package, which code in a named package cannot
+ * refer to, and JMH does not accept benchmarks in the default package. So the methods are looked
+ * up once as method handles; calls through a constant handle are inlined by the JIT and cost the
+ * same as direct calls. Application types are passed around as {@code Object}.
+ */
+final class Tracker {
+
+    private static final MethodHandle NEW_SYNTHETIC_STATEMENT = constructor("SyntheticStatement", long.class);
+    private static final MethodHandle SYNTHETIC_TEXT = method("SyntheticStatement", "text", int.class);
+    private static final MethodHandle EXTRACT_COLUMN_NAMES = method("App", "extractColumnNames", String.class);
+    private static final MethodHandle EXTRACT_TRANSACTIONS = method("App", "extractTransactions", String.class, String[].class);
+    private static final MethodHandle TABLE_SIZE = method("TransactionTable", "size");
+    private static final MethodHandle TABLE_DATE = method("TransactionTable", "getDate", int.class);
+    private static final MethodHandle PARSE_EPOCH_DAY = method("TransactionTable", "parseEpochDay", String.class);
+    private static final MethodHandle BUILD_DATE_INDEX = method("DateIndex", "build", type("TransactionTable"));
+    private static final MethodHandle DATE_RANGE = method("DateIndex", "range", long.class, long.class);
+    private static final MethodHandle BUILD_SPENDING_CUBE = method("SpendingCube", "build", type("TransactionTable"));
+    private static final MethodHandle CUBE_TOTALS = method("SpendingCube", "totals", long.class, long.class);
+    private static final MethodHandle NEW_CATEGORIZER = constructor("MerchantCategorizer", List.class, List.class, int.class);
+    private static final MethodHandle CATEGORIZE = method("MerchantCategorizer", "categorize", String.class);
+    private static final MethodHandle CLASSIFY = method("MerchantCategorizer", "classify", String.class);
+    private static final MethodHandle TABLE_TRANSACTION_ID = method("TransactionTable", "getTransactionId", int.class);
+    private static final MethodHandle NEW_SEARCH_INDEX = constructor("TransactionSearchIndex", type("TransactionTable"));
+    private static final MethodHandle SEARCH = method("TransactionSearchIndex", "search", String.class, int.class);
+
+    private Tracker() {
+    }
+
+    /**
+     * Statement text with the real line layout; the same for the same arguments.
+     */
+    static String syntheticText(int transactions, long seed) {
+        try {
+            Object generator = (Object) NEW_SYNTHETIC_STATEMENT.invokeExact(seed);
+            return (String) (Object) SYNTHETIC_TEXT.invokeExact(generator, transactions);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return The third line of a statement's text, which holds the column names.
+     */
+    static String columnsLine(String statementText) {
+        int dateRangeStart = statementText.indexOf('\n') + 1;
+        int columnsStart = statementText.indexOf('\n', dateRangeStart) + 1;
+        return statementText.substring(columnsStart, statementText.indexOf('\n', columnsStart));
+    }
+
+    /**
+     * @return A statement's text after the three header lines, as {@code App} passes it to {@code extractTransactions}.
+     */
+    static String body(String statementText) {
+        int dateRangeStart = statementText.indexOf('\n') + 1;
+        int columnsStart = statementText.indexOf('\n', dateRangeStart) + 1;
+        return statementText.substring(statementText.indexOf('\n', columnsStart) + 1);
+    }
+
+    /**
+     * Parses a synthetic statement, returns the {@code TransactionTable}.
+     */
+    static Object syntheticTable(int transactions, long seed) {
+        String text = syntheticText(transactions, seed);
+        return extractTransactions(body(text), extractColumnNames(columnsLine(text)));
+    }
+
+    static String[] extractColumnNames(String columnsLine) {
+        try {
+            return (String[]) (Object) EXTRACT_COLUMN_NAMES.invokeExact((Object) columnsLine);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * {@code App.extractTransactions}, returns the {@code TransactionTable}.
+     */
+    static Object extractTransactions(String text, String[] columnNames) {
+        try {
+            return (Object) EXTRACT_TRANSACTIONS.invokeExact((Object) text, (Object) columnNames);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static int tableSize(Object table) {
+        try {
+            return (int) TABLE_SIZE.invokeExact(table);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static String tableDate(Object table, int row) {
+        try {
+            return (String) (Object) TABLE_DATE.invokeExact(table, row);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static int parseEpochDay(String date) {
+        try {
+            return (int) PARSE_EPOCH_DAY.invokeExact((Object) date);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * {@code DateIndex.build}, returns the {@code DateIndex}.
+     */
+    static Object buildDateIndex(Object table) {
+        try {
+            return (Object) BUILD_DATE_INDEX.invokeExact(table);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static int[] dateRange(Object dateIndex, long startDay, long endDay) {
+        try {
+            return (int[]) (Object) DATE_RANGE.invokeExact(dateIndex, startDay, endDay);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * {@code SpendingCube.build}, returns the {@code SpendingCube}.
+     */
+    static Object buildSpendingCube(Object table) {
+        try {
+            return (Object) BUILD_SPENDING_CUBE.invokeExact(table);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Long> cubeTotals(Object spendingCube, long startDay, long endDay) {
+        try {
+            return (Map<String, Long>) (Object) CUBE_TOTALS.invokeExact(spendingCube, startDay, endDay);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * {@code new MerchantCategorizer(keywords, categories, cacheSize)}, returns the categoriser.
+     */
+    static Object newCategorizer(List<String> keywords, List<String> categories, int cacheSize) {
+        try {
+            return (Object) NEW_CATEGORIZER.invokeExact((Object) keywords, (Object) categories, cacheSize);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static String categorize(Object categorizer, String description) {
+        try {
+            return (String) (Object) CATEGORIZE.invokeExact(categorizer, (Object) description);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * {@code MerchantCategorizer.classify}: the automaton alone, without the memo cache.
+     */
+    static String classify(Object categorizer, String description) {
+        try {
+            return (String) (Object) CLASSIFY.invokeExact(categorizer, (Object) description);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static String tableTransactionId(Object table, int row) {
+        try {
+            return (String) (Object) TABLE_TRANSACTION_ID.invokeExact(table, row);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * {@code new TransactionSearchIndex(table)}, returns the index.
+     */
+    static Object newSearchIndex(Object table) {
+        try {
+            return (Object) NEW_SEARCH_INDEX.invokeExact(table);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * {@code TransactionSearchIndex.search}, returns the {@code Result}.
+     */
+    static Object search(Object searchIndex, String query, int limit) {
+        try {
+            return (Object) SEARCH.invokeExact(searchIndex, (Object) query, limit);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Drops what the application prints to the console (e.g. the per-parse summary), which would
+     * otherwise be measured along with the work.
+     */
+    static void muteConsole() {
+        PrintStream nowhere = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(nowhere);
+        System.setErr(nowhere);
+    }
+
+    // --- Lookup ---
+
+    private static Class<?> type(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Application class not on the classpath: " + className, e);
+        }
+    }
+
+    private static MethodHandle method(String className, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type(className).getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true); // Many entry points are package-private
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            return handle.asType(handle.type().erase()); // Reference types become Object, primitives stay
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot find " + className + "." + name, e);
+        }
+    }
+
+    private static MethodHandle constructor(String className, Class<?>... parameterTypes) {
+        try {
+            Constructor<?> constructor = type(className).getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflectConstructor(constructor);
+            return handle.asType(handle.type().erase());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot find the constructor of " + className, e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+}
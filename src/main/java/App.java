@@ -1,12 +1,11 @@
 
 import javafx.application.Application;
-import javafx.stage.Stage;
-import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
@@ -18,12 +17,43 @@ public class App {
     private static final int DATE_RANGE_LINE_INDEX = 1;
     private static final int COLUMNS_LINE_INDEX = 2;
     private static final int DATA_START_LINE_INDEX = 3;
+    private static final int STREAM_WINDOW_PAGES = 8; // Pages stripped per window in streaming mode
+    // Worker threads used to strip pages, override with -Dtracker.threads=N (1 = single-threaded streaming)
+    private static final int EXTRACTION_THREADS = Integer.getInteger("tracker.threads", Runtime.getRuntime().availableProcessors());
+    // Parsed statements are cached by PDF content hash, disable with -Dtracker.noCache=true
+    private static final boolean CACHE_ENABLED = !Boolean.getBoolean("tracker.noCache");
     /**
      * The main entry point of the application.
-     * @param args Command line arguments (not used currently).
+     * @param args Command line arguments. With none the hard-coded statement below is opened in the chart,
+     *             {@code --batch <dir|glob> [--password <pw> | --passwords <file>] [--threads <n>]}
+     *             parses many statements and prints a per-file summary; add {@code --ledger <file>} to merge them
+     *             into a transaction ledger. {@code --ledger <file>} on its own opens the chart for the whole ledger.
+     *             {@code --report ...} writes a CSV/JSON spending report without starting JavaFX, see {@link HeadlessReport}.
+     *             {@code --serve ...} answers JSON spending queries over HTTP on localhost, see {@link SpendingServer}.
+     *             {@code --watch <dir>...} keeps running and merges every new statement dropped into the folders, see {@link StatementWatcher}.
      */
     public static void main(String[] args) {
-        System.out.println("Hello from PhonePe Tracker!");
+        if (args.length > 0 && args[0].equals("--report")) {
+            HeadlessReport.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            SpendingServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--watch")) {
+            StatementWatcher.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        Log.info("Hello from PhonePe Tracker!");
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args);
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--ledger")) {
+            showLedger(Paths.get(args[1]));
+            return;
+        }
         // TODO: Add application logic here
 
         String pdfFilePath = "/Users/hulk/Downloads/pp/PhonePe_k.pdf"; // <--- CHANGE THIS
@@ -31,40 +61,186 @@ public class App {
         File pdfFile = new File(pdfFilePath);
 
         if (!pdfFile.exists()) {
-            System.err.println("Error: PDF file not found at path: " + pdfFilePath);
+            Log.error("PDF file not found at path: %s", pdfFilePath);
             return; // Exit if the file doesn't exist
         }
 
-        // Use try-with-resources to ensure the document is closed automatically
-        try (PDDocument document = Loader.loadPDF(pdfFile, "7822864892")) {
+        // Open the window right away; the statement is read in the background and streamed into the chart
+        PieChartApp.setStatementLoader(new StatementLoadTask(pdfFile, "7822864892", CACHE_ENABLED ? StatementCache.defaultCache() : null));
+        Application.launch(PieChartApp.class);
 
-           // if (!document.isEncrypted()) {
-                PDFTextStripper pdfStripper = new PDFTextStripper();
-                String text = pdfStripper.getText(document);
-                System.out.println("\n--- Extracted PDF Text ---");
-                System.out.println(text);
-                System.out.println("--- End of PDF Text ---");
+        // --- End of PDF Reading Logic ---
 
-                parseReport(text);
+        Log.info("\nApplication finished.");
+    }
 
-                // TODO: Add your logic here to process the extracted 'text'
-                // For example, search for specific keywords, parse amounts, dates, etc.
+    /**
+     * Reads a statement, from the parse cache if this exact PDF has been parsed before.
+     * @param cache The parse cache, or null to always parse.
+     * @return The parsed statement, or null if the header lines could not be found.
+     */
+    static StatementMetadata readStatement(File pdfFile, String password, StatementCache cache) throws IOException {
+        return readStatement(pdfFile, password, cache, null);
+    }
 
-          //  } else {
-           //     System.err.println("Error: Cannot read encrypted PDF document without a password.");
-           // }
+    /**
+     * Reads a statement like {@link #readStatement(File, String, StatementCache)}, reporting the rows
+     * of each window of pages as they are parsed (a cache hit is reported as one window).
+     * @param listener Called on the reading thread, or null.
+     */
+    static StatementMetadata readStatement(File pdfFile, String password, StatementCache cache,
+                                           StatementWindowParser.Listener listener) throws IOException {
+        String contentHash = null;
+        if (cache != null) {
+            contentHash = StatementCache.contentHash(pdfFile.toPath());
+            StatementMetadata cached = cache.load(contentHash);
+            if (cached != null) {
+                Log.info("Loaded %d transactions for %s from the parse cache.", cached.getTransactionTable().size(), pdfFile.getName());
+                if (listener != null) {
+                    listener.windowParsed(cached.getTransactionTable(), 0, 1, 1);
+                }
+                return cached;
+            }
+        }
 
-        } catch (IOException e) {
-            System.err.println("Error reading PDF file: " + e.getMessage());
-            e.printStackTrace(); // Print stack trace for debugging
+        StatementMetadata metadata;
+        if (EXTRACTION_THREADS > 1 && !LayoutStatementReader.ENABLED) {
+            // Each worker strips its own chunk of pages from its own copy of the document
+            ParallelStatementReader reader = new ParallelStatementReader(pdfFile, password, EXTRACTION_THREADS, STREAM_WINDOW_PAGES);
+            reader.setListener(listener);
+            metadata = reader.read();
+        } else {
+            // Use try-with-resources to ensure the document is closed automatically
+            try (PDDocument document = PipelineEvents.loadPdf(pdfFile, password)) {
+                if (LayoutStatementReader.ENABLED) {
+                    // Records are built from word positions, page by page
+                    LayoutStatementReader reader = new LayoutStatementReader(STREAM_WINDOW_PAGES);
+                    reader.setListener(listener);
+                    metadata = reader.read(document);
+                } else {
+                    // Walk the statement a few pages at a time so the full text is never held in memory
+                    StreamingStatementReader reader = new StreamingStatementReader(STREAM_WINDOW_PAGES);
+                    reader.setListener(listener);
+                    metadata = reader.read(document);
+                }
+            }
         }
 
-        // --- End of PDF Reading Logic ---
+        if (cache != null && metadata != null) {
+            try {
+                cache.store(contentHash, metadata);
+            } catch (IOException e) {
+                Log.warn("Could not write parse cache entry: %s", e.getMessage());
+            }
+        }
+        return metadata;
+    }
+
+    private static void runBatch(String[] args) {
+        String input = null;
+        PasswordSource passwords = PasswordSource.fixed(null);
+        int threads = EXTRACTION_THREADS;
+        Path ledgerFile = null;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--password":
+                        passwords = PasswordSource.fixed(args[++i]);
+                        break;
+                    case "--passwords":
+                        passwords = PasswordSource.fromProperties(Paths.get(args[++i]));
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--ledger":
+                        ledgerFile = Paths.get(args[++i]);
+                        break;
+                    default:
+                        input = args[i];
+                }
+            }
+            if (input == null) {
+                System.err.println("Usage: --batch <dir|glob> [--password <pw> | --passwords <file>] [--threads <n>] [--ledger <file>]");
+                return;
+            }
+
+            List<Path> files = BatchIngestor.resolveInputs(input);
+            Log.info("Batch: %d statement(s) on %d thread(s)", files.size(), threads);
+            long start = System.nanoTime();
+            StatementCache cache = CACHE_ENABLED ? StatementCache.defaultCache() : null;
+            List<BatchIngestor.Result> results = new BatchIngestor(passwords, threads, cache).ingest(files);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            int failed = 0;
+            long records = 0;
+            for (BatchIngestor.Result result : results) {
+                if (result.isSuccess()) {
+                    records += result.getTransactionCount();
+                } else {
+                    failed++;
+                }
+            }
+            Log.info("\n--- Batch Summary ---");
+            results.forEach(result -> Log.info("%s", result));
+            Log.info("%d file(s), %d failed, %d records in %.2f s (%.0f records/s)",
+                    results.size(), failed, records, seconds, records / Math.max(seconds, 1e-9));
+
+            if (ledgerFile != null) {
+                mergeIntoLedger(ledgerFile, results);
+            }
+            Metrics.printSummary(System.out);
+        } catch (IOException | ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            Log.error("Could not run batch: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Merges successfully parsed statements into the ledger; transactions already in it are skipped.
+     */
+    private static void mergeIntoLedger(Path ledgerFile, List<BatchIngestor.Result> results) throws IOException {
+        try (TransactionLedger ledger = TransactionLedger.open(ledgerFile)) {
+            long offered = 0;
+            long added = 0;
+            for (BatchIngestor.Result result : results) {
+                if (result.isSuccess()) {
+                    offered += result.getTransactionCount();
+                    added += ledger.append(result.getMetadata().getTransactionTable());
+                }
+            }
+            Log.info("Ledger %s: %d new, %d duplicate, %d total", ledgerFile, added, offered - added, ledger.size());
+        }
+    }
 
-        System.out.println("\nApplication finished.");
+    /**
+     * Opens the chart for every transaction in a ledger, without reading any PDF.
+     */
+    private static void showLedger(Path ledgerFile) {
+        TransactionTable transactions;
+        try (TransactionLedger ledger = TransactionLedger.open(ledgerFile)) {
+            transactions = ledger.readAll();
+        } catch (IOException e) {
+            Log.error("Could not read ledger: %s", e.getMessage());
+            return;
+        }
+        StatementMetadata metadata = new StatementMetadata("Ledger " + ledgerFile.getFileName(), transactions.size() + " transactions", TRANSACTION_COLUMNS);
+        metadata.setTransactionTable(transactions);
+        showReport(metadata);
     }
 
     private static void parseReport(String text) {
+        StatementMetadata metadata = parseStatementText(text);
+        if (metadata != null) {
+            showReport(metadata);
+        }
+    }
+
+    /**
+     * Parses the full text of a statement into its metadata and transaction records.
+     * @param text The text extracted from the whole PDF.
+     * @return The parsed statement, or null if the text is too short to contain the header lines.
+     */
+    static StatementMetadata parseStatementText(String text) {
         String[] lines = text.split("\\R", 4);
         if (lines.length > 2) {
             String ownerNameLine = lines[0];
@@ -75,30 +251,35 @@ public class App {
             StatementMetadata metadata = new StatementMetadata(ownerNameLine, dateRangeLine, columnNames); // Create the metadata object
 
 
-            if (columnNames.length > 0) {
-                List<TransactionRecord> transactions = extractTransactions(lines[3], columnNames, new ArrayList<>());
-                metadata.setTransactions(transactions);
+            if (columnNames.length > 0 && lines.length > DATA_START_LINE_INDEX) {
+                metadata.setTransactionTable(extractTransactions(lines[DATA_START_LINE_INDEX], columnNames));
             }
-
-            System.out.println("\n--- Extracted Metadata ---");
-            System.out.println(metadata);
-
-
-            PieChartApp.setStatementData(metadata);
-            Application.launch(PieChartApp.class);
-
-            System.out.println("--- End of Metadata ---");
+            return metadata;
 
         } else {
-            System.err.println("Warning: Could not extract metadata - PDF text has fewer than 2 lines.");
+            Log.warn("Could not extract metadata - PDF text has fewer than 2 lines.");
             // Optionally print the first few lines if available for debugging
-            if (lines.length > 0) System.err.println("First line: " + lines[0]);
+            if (lines.length > 0) Log.warn("First line: %s", lines[0]);
+            return null;
         }
     }
 
+    /**
+     * Prints the parsed metadata and opens the spending chart for it.
+     * @param metadata The parsed statement.
+     */
+    static void showReport(StatementMetadata metadata) {
+        Log.info("\n--- Extracted Metadata ---");
+        Log.info(metadata.toString());
+
 
+        PieChartApp.setStatementData(metadata);
+        Application.launch(PieChartApp.class);
 
-    private static String[] extractColumnNames(String columnsLine) {
+        Log.info("--- End of Metadata ---");
+    }
+
+    static String[] extractColumnNames(String columnsLine) {
         String[] columnNames;
         if (columnsLine != null && !columnsLine.trim().isEmpty()) {
             // Split by one or more whitespace characters
@@ -106,7 +287,7 @@ public class App {
         } else {
             // Assign an empty array if the columns line is null or empty/whitespace only
             columnNames = new String[0];
-            System.err.println("Warning: Third line (columns) is empty or missing.");
+            Log.warn("Third line (columns) is empty or missing.");
         }
         return columnNames;
     }
@@ -120,163 +301,31 @@ public class App {
     public static final String COL_TYPE = "Type"; // Debit or Credit
     public static final String COL_AMOUNT = "Amount";
     public static final String COL_CURRENCY = "Currency";
+    // Columns of every parsed transaction, in display order
+    public static final String[] TRANSACTION_COLUMNS = {
+            COL_DATE, COL_TIME, COL_DESCRIPTION, COL_TRANSACTION_ID, COL_UTR, COL_ACCOUNT, COL_TYPE, COL_AMOUNT, COL_CURRENCY
+    };
 
-    private static final int LINES_PER_TRANSACTION = 7;
-    private static List<TransactionRecord> extractTransactions(String transactionsInText, String[] columnNames, List<TransactionRecord> transactions) {
-        System.out.println("\n--- Parsing Transaction Records ---");
-        // Start processing from the line AFTER the column headers
-        List<TransactionRecord> parsedTransactions = new ArrayList<>();
+    static TransactionTable extractTransactions(String transactionsInText, String[] columnNames) {
+        Log.info("\n--- Parsing Transaction Records ---");
+        TransactionTable parsedTransactions = new TransactionTable();
 
         if (transactionsInText == null || transactionsInText.trim().isEmpty()) {
-            System.err.println("Warning: Transaction text block is empty.");
-            return parsedTransactions; // Return empty list
-        }
-
-        transactionsInText = transactionsInText.replaceAll("Page \\d+ of \\d+", "");
-        transactionsInText = transactionsInText.replaceAll("Date Transaction Details Type Amount", "");
-
-        String[] lines = transactionsInText.split("\\R"); // Split by any newline sequence
-
-        System.out.println("\n--- Parsing Transaction Records (Multi-line Structure) ---");
-        System.out.println("Total lines in transaction block: " + lines.length);
-        System.out.println("Expecting " + LINES_PER_TRANSACTION + " lines per transaction.");
-
-
-        // Iterate through the lines array, taking chunks of LINES_PER_TRANSACTION size
-        for (int i = 0; (i + LINES_PER_TRANSACTION) <= lines.length; i += LINES_PER_TRANSACTION) {
-            Map<String, String> rowData = new HashMap<>();
-            boolean parseSuccess = true; // Flag to track if parsing this chunk worked
-
-            if(lines[i].isBlank() || lines[i].equals("This is a system generated statement. For any queries, contact us at .https://support.phonepe.com/statement")) {
-                 i -= (LINES_PER_TRANSACTION-1);
-                continue;
-            }
-
-            if(lines[i].startsWith("This is an automatically generated statement"))
-                break;
-
-            try {
-                // Extract data line by line, trimming whitespace
-                String date = lines[i].trim();
-                if(lines[i+1].charAt(2)!=':'){
-                    date += lines[i+1];
-                    i++;
-                }
-                String time = lines[i + 0 + 1].trim();
-                String description = lines[i + 0 + 2].trim();
-                if(!lines[i+0+3].startsWith("Transaction ID ")){
-                    description += " " + lines[i+0+3];
-                    i++;
-                }
-                String txnIdLine = lines[i+ 0 + 3].trim();
-                String utrLine = lines[i+ 0 + 4].trim();
-                if(!utrLine.startsWith("UTR No")) {
-                    utrLine = "Wallets txn has no UTR";
-                    i--;
-                }
-                String accountLine = lines[i+ 0 + 5].trim();
-                String amountLine = lines[i+ 0 + 6].trim();
-                if(lines[i+7].contains(".")){
-                    amountLine = amountLine + " "+ lines[i+7];
-                    i = i + 1 + 0;
-                }
-                // --- Parse specific fields from lines ---
-
-                // Transaction ID (Handles potential variations in spacing)
-                String txnId = extractTransactionId(txnIdLine); // Helper method below
-
-                // UTR (Handles potential variations in spacing)
-                String utr = utrLine.startsWith("UTR No")? extractUTRNo(utrLine): utrLine; // Helper method below
-
-                // Account (Handles potential variations in spacing)
-                String account = accountLine.split("\\s+", 3)[2]; // Helper method below
-
-                // Amount Line (e.g., "Debit INR 550.00" or "Credit 100.00")
-                String[] amountParts = amountLine.split("\\s+");
-                String type = "";
-                String amount = "";
-                String currency = ""; // Optional
-
-                if (amountParts.length == 3) {
-                    type = amountParts[0]; // "Debit" or "Credit"
-                    currency = amountParts[1];
-                    amount = amountParts[2]; // Assume amount is last part
-                } else {
-                    System.err.println("Warning: Could not parse amount line format: '" + amountLine + "' at index " + (i + 6));
-                    type = "Unknown";
-                    amount = amountLine; // Store the whole line if parsing fails
-                    currency = "Unknown";
-                    parseSuccess = false;
-                }
-
-                // --- Populate the map ---
-                rowData.put(COL_DATE, date);
-                rowData.put(COL_TIME, time);
-                rowData.put(COL_DESCRIPTION, description);
-                rowData.put(COL_TRANSACTION_ID, txnId != null ? txnId : txnIdLine); // Fallback to full line
-                rowData.put(COL_UTR, utr != null ? utr : utrLine); // Fallback to full line
-                rowData.put(COL_ACCOUNT, account != null ? account : accountLine); // Fallback to full line
-                rowData.put(COL_TYPE, type);
-                rowData.put(COL_CURRENCY, currency);
-                rowData.put(COL_AMOUNT, amount);
-
-                // Only add if basic parsing seemed okay (or adjust based on needs)
-                // if (parseSuccess) {
-                TransactionRecord record = new TransactionRecord(rowData);
-                parsedTransactions.add(record);
-                // System.out.println("Added Record: " + record); // Uncomment for debugging
-                // }
-
-            } catch (ArrayIndexOutOfBoundsException e) {
-                // This happens if a transaction chunk is shorter than expected
-                System.out.println("Error: Incomplete transaction data found starting near line index " + i + ". Skipping chunk.[[" +
-                        lines[i] +
-                        "]]");
-                // Optionally log the lines that caused the error:
-                // String[] errorChunk = Arrays.copyOfRange(lines, i, Math.min(i + LINES_PER_TRANSACTION, lines.length));
-                // System.err.println("Problematic lines: " + Arrays.toString(errorChunk));
-                // Skip to the next potential transaction start (might be risky if structure varies)
-                // Or simply break/stop parsing here depending on desired robustness
-            } catch (Exception e) {
-                // Catch other potential errors during parsing
-                System.out.println("Error parsing transaction chunk starting near line index " + i + ": " + e.getMessage());
-                e.printStackTrace(); // Print stack trace for detailed debugging
-            }
-        }
-
-        // Check for leftover lines
-        int leftoverLines = lines.length % LINES_PER_TRANSACTION;
-        if (leftoverLines > 0) {
-            System.err.println("Warning: Found " + leftoverLines + " leftover line(s) at the end of the transaction block, possibly an incomplete transaction.");
-            // Print leftover lines for debugging:
-            String[] leftovers = Arrays.copyOfRange(lines, lines.length - leftoverLines, lines.length);
-            System.err.println("  Leftover lines: " + Arrays.toString(leftovers));
+            Log.warn("Transaction text block is empty.");
+            return parsedTransactions; // Return empty table
         }
 
-        System.out.println("Parsed " + parsedTransactions.size() + " transaction records based on multi-line structure.");
-        System.out.println("--- End of Transaction Parsing ---");
+        // One forward pass over the characters; page footers and repeated headers are dropped inline
+        PipelineEvents.Parse event = new PipelineEvents.Parse();
+        event.start();
+        TransactionTokenizer tokenizer = new TransactionTokenizer(parsedTransactions, false);
+        tokenizer.feed(transactionsInText);
+        tokenizer.finish();
+        PipelineEvents.parsed(event, transactionsInText.length(), parsedTransactions.size(), tokenizer.getErrorCount());
+
+        Log.info("Parsed %d transaction records from %d lines (%d skipped).",
+                parsedTransactions.size(), tokenizer.getLineCount(), tokenizer.getErrorCount());
+        Log.info("--- End of Transaction Parsing ---");
         return parsedTransactions;
-
-    }
-
-    private static String extractTransactionId(String line) {
-        if(line.indexOf(':')>0){
-            return extractValueAfterColon(line);
-        }
-        return line.substring("Transaction ID ".length());
-    }
-    private static String extractUTRNo(String line) {
-        if(line.indexOf(':')>0){
-            return extractValueAfterColon(line);
-        }
-        return line.substring("UTR No. ".length());
-    }
-    private static String extractValueAfterColon(String line) {
-        int colonIndex = line.indexOf(':');
-        if (colonIndex != -1 && colonIndex < line.length() - 1) {
-            return line.substring(colonIndex + 1).trim();
-        }
-        System.err.println("Warning: Could not find ':' or value after it in line: '" + line + "'");
-        return null; // Or return the original line, or empty string, depending on desired behavior
     }
-}
\ No newline at end of file
+}
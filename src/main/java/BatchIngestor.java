@@ -0,0 +1,227 @@
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses many statements in one run on a work-stealing {@link ForkJoinPool}.
+ * Each file is loaded, stripped and parsed on its own; a failing file is reported and
+ * the rest of the batch carries on.
+ */
+public class BatchIngestor {
+
+    private static final int STREAM_WINDOW_PAGES = 8;
+
+    private final PasswordSource passwords;
+    private final int parallelism;
+    private final StatementCache cache;
+
+    /**
+     * Constructor for BatchIngestor.
+     * @param passwords Supplies the password for each file.
+     * @param parallelism Number of files parsed at the same time.
+     * @param cache Parse cache to consult and fill, or null to always parse.
+     */
+    public BatchIngestor(PasswordSource passwords, int parallelism, StatementCache cache) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, was " + parallelism);
+        }
+        this.passwords = passwords;
+        this.parallelism = parallelism;
+        this.cache = cache;
+    }
+
+    /**
+     * Outcome of parsing one statement.
+     */
+    public static class Result {
+        private final Path file;
+        private final StatementMetadata metadata; // null if the file failed
+        private final int pages;
+        private final long elapsedNanos;
+        private final Exception error;
+
+        Result(Path file, StatementMetadata metadata, int pages, long elapsedNanos, Exception error) {
+            this.file = file;
+            this.metadata = metadata;
+            this.pages = pages;
+            this.elapsedNanos = elapsedNanos;
+            this.error = error;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public StatementMetadata getMetadata() {
+            return metadata;
+        }
+
+        public boolean isSuccess() {
+            return error == null && metadata != null;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+
+        public int getTransactionCount() {
+            return metadata != null ? metadata.getTransactionTable().size() : 0;
+        }
+
+        public double getElapsedMillis() {
+            return elapsedNanos / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+            if (!isSuccess()) {
+                return String.format("FAILED %s after %.1f ms: %s", file, getElapsedMillis(),
+                        error != null ? error.getMessage() : "no statement header found");
+            }
+            if (pages == 0) {
+                return String.format("CACHED %s: %d records in %.1f ms", file, getTransactionCount(), getElapsedMillis());
+            }
+            return String.format("OK     %s: %d pages, %d records in %.1f ms (%.1f pages/s, %.0f records/s)",
+                    file, pages, getTransactionCount(), getElapsedMillis(), pages / seconds, getTransactionCount() / seconds);
+        }
+    }
+
+    /**
+     * Parses every file, largest first so a few huge statements do not finish last on their own.
+     * @return One result per file, in the order of {@code files}.
+     */
+    public List<Result> ingest(List<Path> files) {
+        Result[] results = new Result[files.size()];
+        Integer[] order = new Integer[files.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> sizeOf(files.get(i))).reversed());
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new IngestTask(files, order, 0, order.length, results));
+        } finally {
+            pool.shutdown();
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Splits the file list in halves until a single file is left; idle workers steal the other halves.
+     */
+    private class IngestTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+        private final Integer[] order;
+        private final int from;
+        private final int to;
+        private final Result[] results;
+
+        IngestTask(List<Path> files, Integer[] order, int from, int to, Result[] results) {
+            this.files = files;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    int index = order[from];
+                    results[index] = ingestOne(files.get(index));
+                    Log.info("%s", results[index]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new IngestTask(files, order, from, mid, results),
+                      new IngestTask(files, order, mid, to, results));
+        }
+    }
+
+    private Result ingestOne(Path file) {
+        long start = System.nanoTime();
+        int pages = 0;
+        try {
+            String contentHash = null;
+            if (cache != null) {
+                contentHash = StatementCache.contentHash(file);
+                StatementMetadata cached = cache.load(contentHash);
+                if (cached != null) {
+                    return new Result(file, cached, 0, System.nanoTime() - start, null);
+                }
+            }
+            StatementMetadata metadata;
+            try (PDDocument document = PipelineEvents.loadPdf(file.toFile(), passwords.passwordFor(file))) {
+                pages = document.getNumberOfPages();
+                metadata = LayoutStatementReader.ENABLED
+                        ? new LayoutStatementReader(STREAM_WINDOW_PAGES).read(document)
+                        : new StreamingStatementReader(STREAM_WINDOW_PAGES).read(document);
+            }
+            if (cache != null && metadata != null) {
+                try {
+                    cache.store(contentHash, metadata);
+                } catch (IOException e) {
+                    // The statement itself parsed fine, it just will not be cached
+                    Log.warn("Could not write parse cache entry for %s: %s", file, e.getMessage());
+                }
+            }
+            return new Result(file, metadata, pages, System.nanoTime() - start, null);
+        } catch (Exception e) {
+            // Keep going, one bad statement should not stop the whole batch
+            return new Result(file, null, pages, System.nanoTime() - start, e);
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Resolves a directory (all PDFs in it) or a glob such as {@code statements/2024-*.pdf} to files.
+     */
+    public static List<Path> resolveInputs(String dirOrGlob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Path path = Paths.get(dirOrGlob);
+        if (Files.isDirectory(path)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, "*.{pdf,PDF}")) {
+                stream.forEach(files::add);
+            }
+        } else if (Files.isRegularFile(path)) {
+            files.add(path);
+        } else {
+            Path dir = path.getParent() != null ? path.getParent() : Paths.get(".");
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + path.getFileName());
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path candidate : stream) {
+                    if (Files.isRegularFile(candidate) && matcher.matches(candidate.getFileName())) {
+                        files.add(candidate);
+                    }
+                }
+            }
+        }
+        files.sort(Comparator.naturalOrder());
+        return files;
+    }
+}
@@ -0,0 +1,77 @@
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helpers for the compact big-endian binary files written by {@link StatementCache} and
+ * {@link TransactionTable}. Writers go through {@link DataOutput}; readers work directly on a
+ * (usually memory-mapped) {@link ByteBuffer} and use bulk gets for primitive columns.
+ */
+final class BinaryFormat {
+
+    private static final int SCRATCH_SIZE = 1024;
+    // Reused when copying short strings out of direct (memory-mapped) buffers
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[SCRATCH_SIZE]);
+
+    private BinaryFormat() {
+    }
+
+    /** Writes a length-prefixed UTF-8 string; null is written as length -1. */
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (in.hasArray()) {
+            String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return value;
+        }
+        byte[] bytes = length <= SCRATCH_SIZE ? SCRATCH.get() : new byte[length];
+        in.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    static void writeInts(DataOutput out, int[] values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    static int[] readInts(ByteBuffer in, int count, int capacity) {
+        int[] values = new int[Math.max(count, capacity)];
+        in.asIntBuffer().get(values, 0, count);
+        in.position(in.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    static void writeLongs(DataOutput out, long[] values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeLong(values[i]);
+        }
+    }
+
+    static long[] readLongs(ByteBuffer in, int count, int capacity) {
+        long[] values = new long[Math.max(count, capacity)];
+        in.asLongBuffer().get(values, 0, count);
+        in.position(in.position() + count * Long.BYTES);
+        return values;
+    }
+
+    static byte[] readBytes(ByteBuffer in, int count, int capacity) {
+        byte[] values = new byte[Math.max(count, capacity)];
+        in.get(values, 0, count);
+        return values;
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.Arrays;
+
+/**
+ * Rows of a {@link TransactionTable} sorted by epoch day. A date range resolves to a contiguous
+ * slice of {@link #getRows()} with two binary searches, and the earliest/latest dates are the
+ * first/last entries. Rows without a parseable date are left out.
+ */
+public class DateIndex {
+
+    private final int[] days;  // Sorted ascending
+    private final int[] rows;  // rows[i] is the table row whose date is days[i]
+
+    private DateIndex(int[] days, int[] rows) {
+        this.days = days;
+        this.rows = rows;
+    }
+
+    /**
+     * Builds the index. Rows with the same date keep their table order.
+     */
+    public static DateIndex build(TransactionTable table) {
+        return new DateIndex(new int[0], new int[0]).extend(table, 0);
+    }
+
+    /**
+     * @return An index of this one's rows plus table rows {@code fromRow..size()}, which must not be indexed yet.
+     * Only the new rows are sorted, then merged in; rows appended in date order are simply copied after the others.
+     */
+    public DateIndex extend(TransactionTable table, int fromRow) {
+        long[] keys = new long[Math.max(0, table.size() - fromRow)];
+        int count = 0;
+        for (int row = fromRow; row < table.size(); row++) {
+            int day = table.getEpochDay(row);
+            if (day != TransactionTable.NO_DATE) {
+                keys[count++] = ((long) day << 32) | row; // Sorts by day, then by row
+            }
+        }
+        Arrays.sort(keys, 0, count);
+
+        int[] mergedDays = Arrays.copyOf(days, days.length + count);
+        int[] mergedRows = Arrays.copyOf(rows, rows.length + count);
+        // Merge from the back; on equal days the existing entries (lower rows) stay first
+        int i = days.length - 1;
+        for (int k = count - 1, out = mergedDays.length - 1; k >= 0; out--) {
+            int day = (int) (keys[k] >> 32);
+            if (i >= 0 && days[i] > day) {
+                mergedDays[out] = days[i];
+                mergedRows[out] = rows[i--];
+            } else {
+                mergedDays[out] = day;
+                mergedRows[out] = (int) keys[k--];
+            }
+        }
+        return new DateIndex(mergedDays, mergedRows);
+    }
+
+    /**
+     * @return Index of the first entry on or after {@code day}.
+     */
+    public int lowerBound(long day) {
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return Index just past the last entry on or before {@code day}.
+     */
+    public int upperBound(long day) {
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] <= day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Resolves an inclusive day range to the slice {@code [result[0], result[1])} of {@link #getRows()}.
+     * Use {@link Long#MIN_VALUE}/{@link Long#MAX_VALUE} for an open end.
+     */
+    public int[] range(long startDay, long endDay) {
+        int from = lowerBound(startDay);
+        int to = Math.max(from, upperBound(endDay));
+        return new int[]{from, to};
+    }
+
+    /**
+     * @return Table rows in date order. Not copied, do not modify.
+     */
+    public int[] getRows() {
+        return rows;
+    }
+
+    /**
+     * @return The epoch day of the entry at {@code position}.
+     */
+    public int getDay(int position) {
+        return days[position];
+    }
+
+    public int size() {
+        return days.length;
+    }
+
+    public boolean isEmpty() {
+        return days.length == 0;
+    }
+
+    /**
+     * @return The earliest epoch day; only valid if the index is not empty.
+     */
+    public int getMinDay() {
+        return days[0];
+    }
+
+    /**
+     * @return The latest epoch day; only valid if the index is not empty.
+     */
+    public int getMaxDay() {
+        return days[days.length - 1];
+    }
+}
@@ -0,0 +1,161 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Spending report without a UI, for servers and cron: parses statements (or reads a ledger),
+ * aggregates them with {@link SpendingEngine} and writes the top categories as CSV or JSON to
+ * stdout or a file. Never touches JavaFX, so it starts quickly and runs without a display.
+ * Progress and warnings go to stderr, leaving stdout to the report.
+ *
+ * Usage: {@code HeadlessReport (<dir|glob|pdf> | --ledger <file>) [--from <yyyy-mm-dd>] [--to <yyyy-mm-dd>]
+ * [--top <n>] [--format csv|json] [--out <file>] [--password <pw> | --passwords <file>] [--threads <n>]},
+ * or {@code App --report ...}. Exits with 1 if a statement could not be read, 2 on bad arguments.
+ */
+public class HeadlessReport {
+
+    private static final String USAGE = "Usage: --report (<dir|glob|pdf> | --ledger <file>) [--from <yyyy-mm-dd>] [--to <yyyy-mm-dd>]"
+            + " [--top <n>] [--format csv|json] [--out <file>] [--password <pw> | --passwords <file>] [--threads <n>]";
+
+    private String input;
+    private Path ledgerFile;
+    private long startDay = Long.MIN_VALUE;
+    private long endDay = Long.MAX_VALUE;
+    private int topCategories = SpendingEngine.DEFAULT_TOP_CATEGORIES;
+    private SpendingReportWriter.Format format = SpendingReportWriter.Format.CSV;
+    private Path outFile;
+    private PasswordSource passwords = PasswordSource.fixed(null);
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public static void main(String[] args) {
+        PrintStream stdout = System.out;
+        System.setOut(System.err); // Parsing progress must not end up in the report
+        HeadlessReport report = new HeadlessReport();
+        try {
+            report.parseArguments(args);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException | IOException e) {
+            Log.error("%s", e.getMessage());
+            Log.flush();
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        try {
+            boolean complete = report.run(stdout);
+            Log.flush();
+            System.exit(complete ? 0 : 1);
+        } catch (IOException e) {
+            Log.error("Could not write report: %s", e.getMessage());
+            Log.flush();
+            System.exit(1);
+        }
+    }
+
+    private void parseArguments(String[] args) throws IOException {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--ledger":
+                    ledgerFile = Paths.get(args[++i]);
+                    break;
+                case "--from":
+                    startDay = LocalDate.parse(args[++i]).toEpochDay();
+                    break;
+                case "--to":
+                    endDay = LocalDate.parse(args[++i]).toEpochDay();
+                    break;
+                case "--top":
+                    topCategories = Integer.parseInt(args[++i]);
+                    break;
+                case "--format":
+                    format = SpendingReportWriter.Format.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                    break;
+                case "--out":
+                    outFile = Paths.get(args[++i]);
+                    break;
+                case "--password":
+                    passwords = PasswordSource.fixed(args[++i]);
+                    break;
+                case "--passwords":
+                    passwords = PasswordSource.fromProperties(Paths.get(args[++i]));
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                    }
+                    input = args[i];
+            }
+        }
+        if ((input == null) == (ledgerFile == null)) {
+            throw new IllegalArgumentException("Give either statements or --ledger");
+        }
+    }
+
+    /**
+     * Adds the transactions of the statements matching {@code input} (parsed in parallel, through the
+     * parse cache), or of a ledger, to the engine. Statements that cannot be read are reported on stderr.
+     * @param input A directory, glob or PDF, or null to read {@code ledgerFile}.
+     * @return False if some statements could not be read.
+     */
+    static boolean loadInto(SpendingEngine engine, String input, Path ledgerFile, PasswordSource passwords, int threads) throws IOException {
+        if (input == null) {
+            try (TransactionLedger ledger = TransactionLedger.open(ledgerFile)) {
+                engine.addAll(ledger.readAll());
+            }
+            return true;
+        }
+        boolean complete = true;
+        List<Path> files = BatchIngestor.resolveInputs(input);
+        StatementCache cache = Boolean.getBoolean("tracker.noCache") ? null : StatementCache.defaultCache();
+        for (BatchIngestor.Result result : new BatchIngestor(passwords, threads, cache).ingest(files)) {
+            if (result.isSuccess()) {
+                engine.addAll(result.getMetadata().getTransactionTable());
+            } else {
+                Log.error("%s", result);
+                complete = false;
+            }
+        }
+        Log.info("Read %d statement(s)", files.size());
+        return complete;
+    }
+
+    /**
+     * Loads the transactions and writes the report.
+     * @return False if some statements could not be read (the report covers the others).
+     */
+    private boolean run(PrintStream stdout) throws IOException {
+        long start = System.nanoTime();
+        SpendingEngine engine = new SpendingEngine();
+        boolean complete = loadInto(engine, input, ledgerFile, passwords, threads);
+        String source = ledgerFile != null ? ledgerFile.toString() : input;
+
+        boolean openRange = startDay == Long.MIN_VALUE && endDay == Long.MAX_VALUE;
+        SpendingSummary summary = openRange
+                ? engine.summarizeAll(topCategories)
+                : engine.summarize(startDay, endDay, topCategories);
+
+        SpendingReportWriter writer = new SpendingReportWriter(format);
+        if (outFile != null) {
+            try (Writer out = Files.newBufferedWriter(outFile, StandardCharsets.UTF_8)) {
+                writer.write(summary, source, out);
+            }
+        } else {
+            Writer out = new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8));
+            writer.write(summary, source, out);
+        }
+        Log.info("Report: %d transactions, %d categories in %.2f s",
+                summary.getTransactionCount(), summary.getCategoryCount(), (System.nanoTime() - start) / 1_000_000_000.0);
+        return complete;
+    }
+}
@@ -0,0 +1,149 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Distinct-count sketch (Flajolet et al., HyperLogLog with the linear-counting correction for
+ * small counts) with 2^11 registers, about 2.3% standard error. Small sketches keep only the
+ * registers that are set, as a sorted array of {@code index << 6 | rank}, and switch to a dense
+ * byte per register once that would be larger; most per-day sketches stay a few dozen bytes.
+ * Sketches merge by taking the maximum of each register, so a range is the merge of its parts.
+ */
+public final class HyperLogLog {
+
+    private static final int PRECISION = 11;
+    static final int REGISTERS = 1 << PRECISION;
+    private static final int MAX_SPARSE = REGISTERS / 4; // 4 bytes per sparse entry, 1 per dense register
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private int[] sparse = new int[4]; // Sorted by register index; null once dense
+    private int sparseSize;
+    private byte[] dense;
+
+    /**
+     * Adds an item by its 64-bit hash, e.g. from {@link #hash(String)}.
+     */
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - PRECISION));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << PRECISION), 64 - PRECISION) + 1;
+        set(index, rank);
+    }
+
+    /**
+     * Adds the items of another sketch.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.dense != null) {
+            toDense();
+            for (int i = 0; i < REGISTERS; i++) {
+                if (other.dense[i] > dense[i]) {
+                    dense[i] = other.dense[i];
+                }
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                set(other.sparse[i] >>> 6, other.sparse[i] & 63);
+            }
+        }
+    }
+
+    /**
+     * @return The estimated number of distinct items added.
+     */
+    public long estimate() {
+        if (dense == null) {
+            // Every register not listed is zero, which puts the estimate in the linear-counting range
+            return sparseSize == 0 ? 0 : Math.round(REGISTERS * Math.log((double) REGISTERS / (REGISTERS - sparseSize)));
+        }
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : dense) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 64-bit hash of a string (FNV-1a over its UTF-8 bytes, then the MurmurHash3 finalizer to spread the bits).
+     */
+    public static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private void set(int index, int rank) {
+        if (dense != null) {
+            if (rank > dense[index]) {
+                dense[index] = (byte) rank;
+            }
+            return;
+        }
+        int position = find(index);
+        if (position >= 0) {
+            if (rank > (sparse[position] & 63)) {
+                sparse[position] = index << 6 | rank;
+            }
+            return;
+        }
+        if (sparseSize == MAX_SPARSE) {
+            toDense();
+            dense[index] = (byte) rank;
+            return;
+        }
+        position = -position - 1;
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, Math.min(sparseSize * 2, MAX_SPARSE));
+        }
+        System.arraycopy(sparse, position, sparse, position + 1, sparseSize - position);
+        sparse[position] = index << 6 | rank;
+        sparseSize++;
+    }
+
+    /**
+     * Binary search for a register index in the sparse entries.
+     * @return The entry's position, or {@code -(insertion point) - 1}.
+     */
+    private int find(int index) {
+        int low = 0;
+        int high = sparseSize - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midIndex = sparse[mid] >>> 6;
+            if (midIndex < index) {
+                low = mid + 1;
+            } else if (midIndex > index) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void toDense() {
+        if (dense != null) {
+            return;
+        }
+        dense = new byte[REGISTERS];
+        for (int i = 0; i < sparseSize; i++) {
+            dense[sparse[i] >>> 6] = (byte) (sparse[i] & 63);
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+}
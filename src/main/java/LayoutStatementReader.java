@@ -0,0 +1,70 @@
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+
+/**
+ * Reads a statement with {@link LayoutTextStripper}: records are assembled from the positions of
+ * the words on each page, so no page text is built and nothing is re-read. Enable with
+ * {@code -Dtracker.extractor=layout}; the default is the text-based {@link StreamingStatementReader}.
+ */
+public class LayoutStatementReader {
+
+    // Layout-based extraction instead of text-based, -Dtracker.extractor=layout
+    static final boolean ENABLED = "layout".equals(System.getProperty("tracker.extractor"));
+
+    private final int pagesPerWindow;
+    private StatementWindowParser.Listener listener;
+
+    /**
+     * Constructor for LayoutStatementReader.
+     * @param pagesPerWindow How many pages to process between listener calls.
+     */
+    public LayoutStatementReader(int pagesPerWindow) {
+        if (pagesPerWindow < 1) {
+            throw new IllegalArgumentException("pagesPerWindow must be at least 1, was " + pagesPerWindow);
+        }
+        this.pagesPerWindow = pagesPerWindow;
+    }
+
+    /**
+     * Sets a listener that sees the rows of every window of pages as soon as they are parsed.
+     */
+    public void setListener(StatementWindowParser.Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Extracts the metadata and all transaction records from the document.
+     * @param document An already loaded (and decrypted) statement.
+     * @return The parsed statement, or null if no column header row was found.
+     */
+    public StatementMetadata read(PDDocument document) throws IOException {
+        StatementLayoutParser parser = new StatementLayoutParser();
+        LayoutTextStripper stripper = new LayoutTextStripper(parser);
+        int pageCount = document.getNumberOfPages();
+
+        Log.info("\n--- Parsing Transaction Records (Layout, %d pages per window) ---", pagesPerWindow);
+
+        for (int startPage = 1; startPage <= pageCount && stripper.hasMore(); startPage += pagesPerWindow) {
+            int endPage = Math.min(startPage + pagesPerWindow - 1, pageCount);
+            stripper.setStartPage(startPage);
+            stripper.setEndPage(endPage);
+            int fromRow = parser.getTransactionCount();
+            PipelineEvents.stripLayout(stripper, document, parser);
+            PdfLoadMode.releasePageResources(document);
+            if (listener != null) {
+                listener.windowParsed(parser.getTransactions(), fromRow, endPage, pageCount);
+            }
+        }
+
+        int fromRow = parser.getTransactionCount();
+        StatementMetadata metadata = parser.finish(); // Completes the last record
+        if (listener != null && parser.getTransactionCount() > fromRow) {
+            listener.windowParsed(parser.getTransactions(), fromRow, pageCount, pageCount);
+        }
+        Log.info("Parsed %d transaction records from %d page(s) (%d skipped).",
+                parser.getTransactionCount(), pageCount, parser.getErrorCount());
+        Log.info("--- End of Transaction Parsing ---");
+        return metadata;
+    }
+}
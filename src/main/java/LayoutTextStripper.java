@@ -0,0 +1,68 @@
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A text stripper that hands every word with its position to a {@link StatementLayoutParser}
+ * instead of writing text, so records are built straight from the page content without an
+ * intermediate string. Run it with {@link #writeText} and a {@link java.io.Writer#nullWriter()}.
+ */
+public class LayoutTextStripper extends PDFTextStripper {
+
+    private final StatementLayoutParser parser;
+    private boolean more = true;
+
+    /**
+     * Constructor for LayoutTextStripper.
+     * @param parser Receives the words, page by page.
+     */
+    public LayoutTextStripper(StatementLayoutParser parser) throws IOException {
+        this.parser = parser;
+        setSortByPosition(true); // Words of a row arrive together even if the content stream draws columns separately
+    }
+
+    @Override
+    protected void writeString(String text, List<TextPosition> textPositions) throws IOException {
+        if (!more || textPositions.isEmpty()) {
+            return;
+        }
+        // A word may still contain spaces drawn as glyphs; split there so each part gets its own position
+        int start = 0;
+        for (int i = 0; i <= textPositions.size(); i++) {
+            boolean space = i < textPositions.size() && textPositions.get(i).getUnicode().trim().isEmpty();
+            if (i == textPositions.size() || space) {
+                if (i > start) {
+                    addWord(textPositions, start, i);
+                }
+                start = i + 1;
+            }
+        }
+    }
+
+    private void addWord(List<TextPosition> textPositions, int from, int to) {
+        StringBuilder word = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            word.append(textPositions.get(i).getUnicode());
+        }
+        TextPosition first = textPositions.get(from);
+        parser.word(first.getXDirAdj(), first.getYDirAdj(), first.getHeightDir(), word.toString());
+    }
+
+    @Override
+    protected void endPage(PDPage page) throws IOException {
+        if (more) {
+            more = parser.endPage();
+        }
+        super.endPage(page);
+    }
+
+    /**
+     * @return False once the parser has seen the end of the statement.
+     */
+    public boolean hasMore() {
+        return more;
+    }
+}
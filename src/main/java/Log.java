@@ -0,0 +1,314 @@
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Levelled logging that keeps console I/O off the parsing threads. A log call only checks the
+ * level and puts the format string and arguments into a lock-free ring buffer; one background
+ * thread formats whatever has queued up and writes it in a single batch, debug and info to
+ * {@code System.out}, warnings and errors to {@code System.err}. Calls below the level return at
+ * once, and callers guard anything costly to build with {@link #isDebugEnabled()}.
+ *
+ * Warnings that can fire once per record go through a {@link Repeated} handle: only the first
+ * {@code -Dtracker.logRepeatLimit} (default 5) of each kind are written every 10 seconds, and the
+ * rest are counted and reported as one line.
+ *
+ * The level is {@code -Dtracker.logLevel} (debug, info, warn or error; default info). Pending
+ * messages are written at exit; {@link #flush()} waits for them, e.g. before printing a summary.
+ */
+public final class Log {
+
+    /**
+     * Message levels, least severe first.
+     */
+    public enum Level {
+        DEBUG("Debug: "), INFO(""), WARN("Warning: "), ERROR("Error: ");
+
+        private final String prefix;
+
+        Level(String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    private static final int CAPACITY = Integer.highestOneBit(Math.max(Integer.getInteger("tracker.logBuffer", 8192), 2));
+    private static final int MASK = CAPACITY - 1;
+    private static final int REPEAT_LIMIT = Integer.getInteger("tracker.logRepeatLimit", 5);
+    private static final long REPEAT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    /**
+     * A slot of the ring buffer, reused for every message that lands in it.
+     */
+    private static final class Event {
+        Level level;
+        String format;
+        Object[] args;
+    }
+
+    // Bounded multi-producer queue (Vyukov): a slot is free for position p when its sequence is p,
+    // and holds a message for the writer when it is p + 1
+    private static final Event[] EVENTS = new Event[CAPACITY];
+    private static final AtomicLongArray SEQUENCES = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong TAIL = new AtomicLong(); // Next position to claim
+    private static long head; // Next position to write; writer thread only
+
+    private static final List<Repeated> REPEATED = new CopyOnWriteArrayList<>();
+    private static final AtomicLong FLUSH_REQUESTED = new AtomicLong();
+    private static volatile long flushed; // Last flush request the writer has completed
+    private static volatile boolean closed; // Set at exit, after which messages are written by the caller
+    private static volatile Level threshold = parseLevel(System.getProperty("tracker.logLevel"));
+    private static final Thread WRITER;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            EVENTS[i] = new Event();
+            SEQUENCES.set(i, i);
+        }
+        WRITER = new Thread(Log::writeLoop, "tracker-log");
+        WRITER.setDaemon(true);
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::close, "tracker-log-close"));
+    }
+
+    private Log() {
+    }
+
+    private static Level parseLevel(String name) {
+        if (name == null) {
+            return Level.INFO;
+        }
+        try {
+            return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Warning: Unknown tracker.logLevel '" + name + "', using info.");
+            return Level.INFO;
+        }
+    }
+
+    public static Level getLevel() {
+        return threshold;
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level;
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold.ordinal();
+    }
+
+    public static boolean isDebugEnabled() {
+        return threshold == Level.DEBUG;
+    }
+
+    /**
+     * Logs a message at debug level. With arguments it is a {@link String#format(String, Object...)} pattern,
+     * formatted on the writer thread, so the arguments must not change afterwards; without, it is written as is.
+     */
+    public static void debug(String format, Object... args) {
+        log(Level.DEBUG, format, args);
+    }
+
+    public static void info(String format, Object... args) {
+        log(Level.INFO, format, args);
+    }
+
+    public static void warn(String format, Object... args) {
+        log(Level.WARN, format, args);
+    }
+
+    public static void error(String format, Object... args) {
+        log(Level.ERROR, format, args);
+    }
+
+    public static void log(Level level, String format, Object... args) {
+        if (level.ordinal() < threshold.ordinal()) {
+            return;
+        }
+        if (closed) {
+            write(level, format(format, args));
+            return;
+        }
+        long position;
+        int index;
+        while (true) {
+            position = TAIL.get();
+            index = (int) position & MASK;
+            long available = SEQUENCES.get(index) - position;
+            if (available == 0) {
+                if (TAIL.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (available < 0) {
+                // Full: the writer is behind, wait for it rather than lose the message
+                LockSupport.unpark(WRITER);
+                LockSupport.parkNanos(50_000);
+            }
+            // Otherwise another thread claimed this position first, try the next one
+        }
+        Event event = EVENTS[index];
+        event.level = level;
+        event.format = format;
+        event.args = args;
+        SEQUENCES.set(index, position + 1); // Publishes the fields to the writer
+    }
+
+    /**
+     * @return A rate-limited logger for one kind of repeated message, e.g. a per-record parse warning.
+     */
+    public static Repeated repeated(String kind) {
+        Repeated repeated = new Repeated(kind);
+        REPEATED.add(repeated);
+        return repeated;
+    }
+
+    /**
+     * Logs at most {@code -Dtracker.logRepeatLimit} messages of one kind per 10 seconds and counts the rest.
+     */
+    public static final class Repeated {
+        private final String kind;
+        private final AtomicLong count = new AtomicLong(); // Messages in the current window
+        private long windowStart = System.nanoTime(); // Writer thread only
+        private long reported; // Suppressed messages of the current window already reported; writer thread only
+
+        private Repeated(String kind) {
+            this.kind = kind;
+        }
+
+        public void warn(String format, Object... args) {
+            log(Level.WARN, format, args);
+        }
+
+        public void error(String format, Object... args) {
+            log(Level.ERROR, format, args);
+        }
+
+        private void log(Level level, String format, Object[] args) {
+            if (isEnabled(level) && count.incrementAndGet() <= REPEAT_LIMIT) {
+                Log.log(level, format, args);
+            }
+        }
+
+        /**
+         * Appends how many messages the current window suppressed since the last report, if any,
+         * and starts a new window once this one has expired.
+         */
+        private void report(StringBuilder err, long now) {
+            boolean expired = now - windowStart >= REPEAT_WINDOW_NANOS;
+            long suppressed = Math.max(0, (expired ? count.getAndSet(0) : count.get()) - REPEAT_LIMIT) - reported;
+            if (expired) {
+                windowStart = now;
+                reported = 0;
+            } else {
+                reported += suppressed;
+            }
+            if (suppressed > 0) {
+                Metrics.counter("log.suppressed").add(suppressed);
+                err.append(Level.WARN.prefix).append(String.format("%,d more '%s' message(s) suppressed.", suppressed, kind))
+                        .append(System.lineSeparator());
+            }
+        }
+    }
+
+    /**
+     * Waits until every message logged so far by this thread has been written.
+     */
+    public static void flush() {
+        if (closed || Thread.currentThread() == WRITER) {
+            return;
+        }
+        long request = FLUSH_REQUESTED.incrementAndGet();
+        LockSupport.unpark(WRITER);
+        while (flushed < request && WRITER.isAlive()) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    /**
+     * Writes what is pending and switches to writing on the calling thread, for messages logged during shutdown.
+     */
+    private static void close() {
+        flush();
+        closed = true;
+    }
+
+    // --- Writer thread ---
+
+    private static void writeLoop() {
+        StringBuilder out = new StringBuilder(8192);
+        StringBuilder err = new StringBuilder(8192);
+        long idleNanos = 0;
+        while (true) {
+            long request = FLUSH_REQUESTED.get();
+            int drained = drain(out, err);
+            // A flush reports the counts so far but keeps the windows, so it does not let more messages through
+            long now = System.nanoTime();
+            for (Repeated repeated : REPEATED) {
+                if (request != flushed || now - repeated.windowStart >= REPEAT_WINDOW_NANOS) {
+                    repeated.report(err, now);
+                }
+            }
+            writeBatch(System.out, out);
+            writeBatch(System.err, err);
+            flushed = request;
+            if (drained > 0) {
+                idleNanos = 0;
+            } else {
+                // Back off while idle; a flush or a full buffer wakes the writer early
+                idleNanos = Math.min(Math.max(idleNanos * 2, 100_000), MAX_IDLE_NANOS);
+                LockSupport.parkNanos(idleNanos);
+            }
+        }
+    }
+
+    /**
+     * Formats every published message into the two batches.
+     * @return Number of messages taken from the buffer.
+     */
+    private static int drain(StringBuilder out, StringBuilder err) {
+        int drained = 0;
+        while (true) {
+            int index = (int) head & MASK;
+            if (SEQUENCES.get(index) != head + 1) {
+                return drained;
+            }
+            Event event = EVENTS[index];
+            Level level = event.level;
+            String message;
+            try {
+                message = format(event.format, event.args);
+            } catch (RuntimeException e) {
+                message = event.format + " (could not format: " + e + ")";
+            }
+            event.format = null;
+            event.args = null;
+            SEQUENCES.set(index, head + CAPACITY); // Free for the position one lap later
+            head++;
+            drained++;
+            (level.ordinal() >= Level.WARN.ordinal() ? err : out).append(level.prefix).append(message).append(System.lineSeparator());
+        }
+    }
+
+    private static String format(String format, Object[] args) {
+        return args == null || args.length == 0 ? format : String.format(format, args);
+    }
+
+    private static void writeBatch(PrintStream stream, StringBuilder batch) {
+        if (batch.length() > 0) {
+            stream.print(batch);
+            stream.flush();
+            batch.setLength(0);
+        }
+    }
+
+    private static void write(Level level, String message) {
+        PrintStream stream = level.ordinal() >= Level.WARN.ordinal() ? System.err : System.out;
+        stream.println(level.prefix + message);
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Largest-Triangle-Three-Buckets downsampling (Steinarsson, 2013): picks {@code threshold} of
+ * {@code n} points that keep the visual shape of a line. The first and last points are always
+ * kept; the points between are split into {@code threshold - 2} buckets, and from each bucket the
+ * point forming the largest triangle with the point picked from the previous bucket and the
+ * average of the next bucket is kept. One pass, O(n).
+ */
+public final class Lttb {
+
+    private Lttb() {
+    }
+
+    /**
+     * @param x Ascending x values.
+     * @param y The y value of each point.
+     * @param count Number of points to consider, from index 0.
+     * @param threshold Number of points wanted.
+     * @return Ascending indexes of the points to keep; all of them if {@code count <= threshold} or {@code threshold < 3}.
+     */
+    public static int[] downsample(int[] x, long[] y, int count, int threshold) {
+        if (threshold >= count || threshold < 3) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        int[] kept = new int[threshold];
+        int keptCount = 0;
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int a = 0; // The point picked last
+        kept[keptCount++] = a;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket (the last point for the last bucket)
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, count);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            if (nextCount > 0) {
+                averageX /= nextCount;
+                averageY /= nextCount;
+            } else {
+                averageX = x[count - 1];
+                averageY = y[count - 1];
+            }
+
+            // The point of this bucket with the largest triangle (a, point, average)
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double ax = x[a];
+            double ay = y[a];
+            double maxArea = -1;
+            int picked = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((ax - averageX) * ((double) y[i] - ay) - (ax - x[i]) * (averageY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    picked = i;
+                }
+            }
+            kept[keptCount++] = picked;
+            a = picked;
+        }
+        kept[keptCount] = count - 1;
+        return kept;
+    }
+}
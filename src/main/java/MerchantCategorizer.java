@@ -0,0 +1,330 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps transaction descriptions to spending categories with keyword rules such as
+ * {@code swiggy = Food & Dining}. All keywords are compiled into one Aho-Corasick automaton, so a
+ * description is classified in a single pass over its characters however many rules there are.
+ * Keywords match case-insensitively on whole words; when several match, the longest wins, then the
+ * one listed first. Descriptions no rule matches keep their merchant name as the category, as before.
+ * Results are memoised in a bounded LRU cache, since the same merchants come up again and again.
+ *
+ * Rules file format: one {@code keyword = Category} per line, {@code #} starts a comment line.
+ * The default rules are {@code merchant-categories.rules} on the classpath; use
+ * {@code -Dtracker.rules=<file>} to load others, or {@code -Dtracker.rules=} for none.
+ */
+public class MerchantCategorizer {
+
+    public static final int DEFAULT_CACHE_SIZE = 16_384;
+    private static final String DEFAULT_RULES = "/merchant-categories.rules";
+    private static final int NO_RULE = -1;
+
+    private static volatile MerchantCategorizer defaultInstance;
+
+    private final String[] categories; // Category of each rule, in file order
+    private final int ruleCount;
+    // --- Automaton ---
+    private final char[] symbolOf = new char[Character.MAX_VALUE + 1]; // Character -> symbol; 0 for characters in no keyword
+    private final int alphabetSize;
+    private final int[] next; // next[state * alphabetSize + symbol], complete (a DFA: failure links already followed)
+    private final int[] ruleAt; // Rule whose keyword ends at a state, or NO_RULE
+    private final int[] outputLink; // Nearest state on the failure chain with a rule, or -1
+    private final int[] depth; // Keyword length at a state
+    // --- Memo ---
+    private final Map<String, String> cache;
+
+    /**
+     * Constructor for MerchantCategorizer.
+     * @param keywords Keywords, matched case-insensitively; whitespace runs count as one space.
+     * @param categories Category for each keyword.
+     * @param cacheSize Most descriptions to remember, 0 for no cache.
+     */
+    public MerchantCategorizer(List<String> keywords, List<String> categories, int cacheSize) {
+        if (keywords.size() != categories.size()) {
+            throw new IllegalArgumentException("Got " + keywords.size() + " keywords for " + categories.size() + " categories");
+        }
+        this.categories = categories.toArray(new String[0]);
+        this.ruleCount = keywords.size();
+
+        // 1. Alphabet of the characters used in keywords; symbol 0 stands for every other character
+        List<String> normalized = new ArrayList<>(keywords.size());
+        char symbols = 1;
+        int trieSize = 1;
+        for (String keyword : keywords) {
+            String text = normalize(keyword);
+            normalized.add(text);
+            trieSize += text.length();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (symbolOf[c] == 0) {
+                    symbolOf[c] = symbols++;
+                }
+            }
+        }
+        alphabetSize = symbols;
+
+        // 2. Trie of the keywords
+        int[] goTo = new int[Math.multiplyExact(trieSize, alphabetSize)]; // 0 = no edge (the root is never a target)
+        int[] rules = new int[trieSize];
+        int[] lengths = new int[trieSize];
+        Arrays.fill(rules, NO_RULE);
+        int states = 1;
+        for (int rule = 0; rule < normalized.size(); rule++) {
+            String text = normalized.get(rule);
+            if (text.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                int edge = state * alphabetSize + symbolOf[text.charAt(i)];
+                if (goTo[edge] == 0) {
+                    goTo[edge] = states;
+                    lengths[states] = i + 1;
+                    states++;
+                }
+                state = goTo[edge];
+            }
+            if (rules[state] == NO_RULE) {
+                rules[state] = rule; // A repeated keyword keeps its first category
+            }
+        }
+
+        // 3. Failure links in breadth-first order, folded into a complete transition table
+        next = Arrays.copyOf(goTo, states * alphabetSize);
+        ruleAt = Arrays.copyOf(rules, states);
+        depth = Arrays.copyOf(lengths, states);
+        outputLink = new int[states];
+        int[] fail = new int[states];
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        outputLink[0] = -1;
+        for (int symbol = 0; symbol < alphabetSize; symbol++) {
+            int child = next[symbol];
+            if (child != 0) {
+                fail[child] = 0;
+                outputLink[child] = -1;
+                queue[tail++] = child;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int edge = state * alphabetSize + symbol;
+                int child = next[edge];
+                int fallback = next[fail[state] * alphabetSize + symbol];
+                if (child == 0) {
+                    next[edge] = fallback;
+                } else {
+                    fail[child] = fallback;
+                    outputLink[child] = ruleAt[fallback] != NO_RULE ? fallback : outputLink[fallback];
+                    queue[tail++] = child;
+                }
+            }
+        }
+
+        cache = cacheSize > 0 ? new LinkedHashMap<String, String>(Math.min(cacheSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        } : null;
+    }
+
+    /**
+     * Reads rules in the rules file format; malformed lines are reported and skipped.
+     */
+    public static MerchantCategorizer read(BufferedReader reader, int cacheSize) throws IOException {
+        List<String> keywords = new ArrayList<>();
+        List<String> categories = new ArrayList<>();
+        Map<String, String> interned = new HashMap<>(); // One String per category
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String rule = line.trim();
+            if (rule.isEmpty() || rule.startsWith("#")) {
+                continue;
+            }
+            int separator = rule.lastIndexOf('=');
+            String keyword = separator > 0 ? rule.substring(0, separator).trim() : "";
+            String category = separator > 0 ? rule.substring(separator + 1).trim() : "";
+            if (keyword.isEmpty() || category.isEmpty()) {
+                Log.warn("Skipping rule on line %d, expected 'keyword = Category': %s", lineNumber, line);
+                continue;
+            }
+            keywords.add(keyword);
+            categories.add(interned.computeIfAbsent(category, key -> key));
+        }
+        return new MerchantCategorizer(keywords, categories, cacheSize);
+    }
+
+    /**
+     * Reads a rules file.
+     */
+    public static MerchantCategorizer load(Path rulesFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(rulesFile, StandardCharsets.UTF_8)) {
+            return read(reader, DEFAULT_CACHE_SIZE);
+        }
+    }
+
+    /**
+     * @return The categoriser used for aggregation: the rules named by {@code -Dtracker.rules}, else the bundled ones.
+     */
+    public static MerchantCategorizer defaultInstance() {
+        MerchantCategorizer instance = defaultInstance;
+        if (instance == null) {
+            synchronized (MerchantCategorizer.class) {
+                instance = defaultInstance;
+                if (instance == null) {
+                    instance = loadDefault();
+                    defaultInstance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static MerchantCategorizer loadDefault() {
+        String rulesFile = System.getProperty("tracker.rules");
+        try {
+            if (rulesFile != null) {
+                return rulesFile.isEmpty() ? empty() : load(Paths.get(rulesFile));
+            }
+            InputStream in = MerchantCategorizer.class.getResourceAsStream(DEFAULT_RULES);
+            if (in == null) {
+                return empty();
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                return read(reader, DEFAULT_CACHE_SIZE);
+            }
+        } catch (IOException e) {
+            Log.warn("Could not read category rules, using merchant names: %s", e.getMessage());
+            return empty();
+        }
+    }
+
+    private static MerchantCategorizer empty() {
+        return new MerchantCategorizer(List.of(), List.of(), DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @return The category of the best matching rule, else the merchant name (see {@link #merchantOf(String)}).
+     */
+    public String categorize(String description) {
+        if (cache == null) {
+            return classify(description);
+        }
+        String category;
+        synchronized (cache) {
+            category = cache.get(description);
+        }
+        if (category != null) {
+            Metrics.counter("categorize.cache.hits").increment();
+            return category;
+        }
+        Metrics.counter("categorize.cache.misses").increment();
+        category = classify(description);
+        synchronized (cache) {
+            cache.put(description, category);
+        }
+        return category;
+    }
+
+    /**
+     * {@link #categorize(String)} without the cache.
+     */
+    String classify(String description) {
+        int rule = match(description);
+        return rule != NO_RULE ? categories[rule] : merchantOf(description);
+    }
+
+    /**
+     * Runs the automaton over the description once.
+     * @return The best matching rule, or {@link #NO_RULE}.
+     */
+    int match(String description) {
+        if (ruleCount == 0) {
+            return NO_RULE;
+        }
+        String text = normalize(description);
+        int best = NO_RULE;
+        int bestLength = 0;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = next[state * alphabetSize + symbolOf[text.charAt(i)]];
+            // Keywords ending here all end with this character, so they all end on a word boundary or none does
+            boolean endsWord = i + 1 == text.length() || !isWordChar(text.charAt(i + 1)) || !isWordChar(text.charAt(i));
+            if (!endsWord) {
+                continue;
+            }
+            for (int found = ruleAt[state] != NO_RULE ? state : outputLink[state]; found >= 0; found = outputLink[found]) {
+                int length = depth[found];
+                int start = i + 1 - length;
+                boolean startsWord = start == 0 || !isWordChar(text.charAt(start - 1)) || !isWordChar(text.charAt(start));
+                int rule = ruleAt[found];
+                if (startsWord && (length > bestLength || (length == bestLength && rule < best))) {
+                    best = rule;
+                    bestLength = length;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Derives the merchant from a description: the description minus a "Paid to " prefix.
+     */
+    static String merchantOf(String description) {
+        String merchant = description.trim();
+        if (merchant.regionMatches(true, 0, "paid to ", 0, 8)) {
+            merchant = merchant.substring(8).trim();
+        }
+        return merchant;
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    /**
+     * Lower-cases the text and turns every whitespace run into a single space.
+     */
+    private static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = true; // Also drops leading whitespace
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (!space) {
+                    sb.append(' ');
+                    space = true;
+                }
+            } else {
+                sb.append(c < 128 ? (c >= 'A' && c <= 'Z' ? (char) (c + 32) : c) : Character.toLowerCase(c));
+                space = false;
+            }
+        }
+        int length = sb.length();
+        if (length > 0 && sb.charAt(length - 1) == ' ') {
+            sb.setLength(length - 1);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+}
@@ -0,0 +1,163 @@
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process registry of counters and latency histograms, shared by all pipeline stages.
+ * Recording is lock-free and cheap enough for per-window and per-refresh use. A summary can be
+ * printed at any time with {@link #printSummary(PrintStream)}, and at exit when the JVM is started
+ * with {@code -Dtracker.metrics=true}.
+ */
+public final class Metrics {
+
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    static {
+        if (Boolean.getBoolean("tracker.metrics")) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> printSummary(System.out), "metrics-summary"));
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * @return The counter with this name, created on first use.
+     */
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * @return The latency histogram with this name, created on first use.
+     */
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Prints every histogram (count, mean and percentiles in milliseconds) and counter, sorted by name.
+     */
+    public static void printSummary(PrintStream out) {
+        Log.flush(); // Pending log lines first, so the summary is not interleaved with them
+        out.println("\n--- Metrics ---");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            Histogram histogram = entry.getValue();
+            out.printf("%-28s count=%-8d mean=%9.3f ms  p50=%9.3f  p90=%9.3f  p99=%9.3f  max=%9.3f ms%n",
+                    entry.getKey(), histogram.getCount(), histogram.getMean() / 1e6,
+                    histogram.getPercentile(0.50) / 1e6, histogram.getPercentile(0.90) / 1e6,
+                    histogram.getPercentile(0.99) / 1e6, histogram.getMax() / 1e6);
+        }
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(COUNTERS).entrySet()) {
+            out.printf("%-28s %,d%n", entry.getKey(), entry.getValue().get());
+        }
+    }
+
+    /**
+     * A monotonically increasing count.
+     */
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Log-linear histogram of durations in nanoseconds: every power of two is split into 8 buckets,
+     * so percentiles are within about 12% whatever the magnitude, in a fixed 4 KB of counters.
+     */
+    public static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        /**
+         * Records one duration; negative values count as 0.
+         */
+        public void record(long nanos) {
+            long value = Math.max(0, nanos);
+            counts.incrementAndGet(bucketOf(value));
+            count.increment();
+            sum.add(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        /**
+         * Records the time elapsed since {@code startNanos} (a {@link System#nanoTime()} value).
+         */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getMean() {
+            long n = count.sum();
+            return n == 0 ? 0 : sum.sum() / (double) n;
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * @return The upper bound of the bucket holding the given fraction (0..1) of the values, in nanoseconds.
+         */
+        public long getPercentile(double fraction) {
+            long n = count.sum();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * n));
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += counts.get(bucket);
+                if (seen >= rank) {
+                    long upperBound = bucket + 1 < BUCKETS ? lowerBound(bucket + 1) - 1 : Long.MAX_VALUE;
+                    return Math.min(max.get(), upperBound < 0 ? Long.MAX_VALUE : upperBound); // < 0: past 2^63
+                }
+            }
+            return max.get();
+        }
+
+        private static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        private static long lowerBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long subBucket = bucket % SUB_BUCKETS;
+            return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        }
+    }
+}
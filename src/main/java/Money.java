@@ -0,0 +1,138 @@
+/**
+ * Exact fixed-point money handling. Amounts are kept as a {@code long} number of paise
+ * (1/100 rupee) so totals never pick up floating-point error.
+ */
+public final class Money {
+
+    /** Returned by {@link #parsePaise(CharSequence)} when the text is not an amount. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final char RUPEE_SIGN = '\u20B9';
+    private static final long MAX_RUPEES = (Long.MAX_VALUE - 99) / 100;
+
+    private Money() {
+    }
+
+    /**
+     * Parses an amount such as "550", "1,200.50", "Rs. 1,23,456.78" or "-12.5" (optionally with a rupee sign) into paise in a single
+     * pass over the characters, without allocating. Commas are accepted between digits, so both
+     * Indian (1,23,456) and western (123,456) grouping work. More than two decimals are only
+     * accepted when the extra digits are zeros, since anything else cannot be represented exactly.
+     * @return The amount in paise, or {@link #INVALID}.
+     */
+    public static long parsePaise(CharSequence text) {
+        if (text == null) {
+            return INVALID;
+        }
+        int i = 0;
+        int end = text.length();
+        while (i < end && text.charAt(i) <= ' ') i++;
+        while (end > i && text.charAt(end - 1) <= ' ') end--;
+
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        if (i < end && text.charAt(i) == RUPEE_SIGN) {
+            i++;
+        } else if (i + 1 < end && text.charAt(i) == 'R' && text.charAt(i + 1) == 's') {
+            i += 2;
+            if (i < end && text.charAt(i) == '.') i++;
+        }
+        while (i < end && text.charAt(i) == ' ') i++;
+
+        long rupees = 0;
+        int integerDigits = 0;
+        boolean lastWasComma = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (rupees > (MAX_RUPEES - (c - '0')) / 10) {
+                    return INVALID; // Would overflow once converted to paise
+                }
+                rupees = rupees * 10 + (c - '0');
+                integerDigits++;
+                lastWasComma = false;
+            } else if (c == ',' && integerDigits > 0 && !lastWasComma) {
+                lastWasComma = true;
+            } else {
+                break;
+            }
+        }
+        if (lastWasComma) {
+            return INVALID;
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < end && text.charAt(i) == '.') {
+            for (i++; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                if (fractionDigits < 2) {
+                    fraction = fraction * 10 + (c - '0');
+                } else if (c != '0') {
+                    return INVALID; // Sub-paisa precision
+                }
+                fractionDigits++;
+            }
+        }
+        if (i != end || (integerDigits == 0 && fractionDigits == 0)) {
+            return INVALID;
+        }
+        if (fractionDigits == 1) {
+            fraction *= 10; // ".5" is 50 paise
+        }
+
+        long paise = rupees * 100 + fraction;
+        return negative ? -paise : paise;
+    }
+
+    /**
+     * Formats paise with Indian digit grouping and two decimals, e.g. 12345678 -> "1,23,456.78".
+     */
+    public static String format(long paise) {
+        if (paise == INVALID) {
+            return "?";
+        }
+        StringBuilder sb = new StringBuilder(24);
+        if (paise < 0) {
+            sb.append('-');
+        }
+        long abs = Math.abs(paise);
+        String rupees = Long.toString(abs / 100);
+        int length = rupees.length();
+        for (int i = 0; i < length; i++) {
+            int remaining = length - i;
+            if (i > 0 && (remaining == 3 || (remaining > 3 && (remaining - 3) % 2 == 0))) {
+                sb.append(',');
+            }
+            sb.append(rupees.charAt(i));
+        }
+        long fraction = abs % 100;
+        sb.append('.').append(fraction < 10 ? "0" : "").append(fraction);
+        return sb.toString();
+    }
+
+    /**
+     * Formats paise as a plain decimal without grouping, e.g. 12345678 -> "123456.78", for CSV/JSON output.
+     */
+    public static String formatPlain(long paise) {
+        if (paise == INVALID) {
+            return "?";
+        }
+        long abs = Math.abs(paise);
+        long fraction = abs % 100;
+        return (paise < 0 ? "-" : "") + (abs / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    /**
+     * @return The amount in rupees, for display only (e.g. chart slice sizes).
+     */
+    public static double toRupees(long paise) {
+        return paise / 100.0;
+    }
+}
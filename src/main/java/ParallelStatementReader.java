@@ -0,0 +1,172 @@
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Strips a statement on several threads by splitting its pages into chunks.
+ * PDFBox documents and strippers are not thread-safe, so every worker thread loads its own
+ * copy of the document. Chunk texts are handed to the {@link StatementWindowParser} strictly
+ * in page order, and only a bounded number of chunks are in flight at any time.
+ */
+public class ParallelStatementReader {
+
+    private final File pdfFile;
+    private final String password;
+    private final int threads;
+    private final int pagesPerChunk;
+    private StatementWindowParser.Listener listener;
+
+    /**
+     * Constructor for ParallelStatementReader.
+     * @param pdfFile The statement to read.
+     * @param password The statement password, or null if it is not encrypted.
+     * @param threads Number of worker threads (each holds its own copy of the document).
+     * @param pagesPerChunk Pages stripped by one task.
+     */
+    public ParallelStatementReader(File pdfFile, String password, int threads, int pagesPerChunk) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1, was " + threads);
+        }
+        if (pagesPerChunk < 1) {
+            throw new IllegalArgumentException("pagesPerChunk must be at least 1, was " + pagesPerChunk);
+        }
+        this.pdfFile = pdfFile;
+        this.password = password;
+        this.threads = threads;
+        this.pagesPerChunk = pagesPerChunk;
+    }
+
+    /**
+     * Sets a listener that sees the rows of every chunk as soon as they are parsed, in page order.
+     */
+    public void setListener(StatementWindowParser.Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Extracts the metadata and all transaction records from the statement.
+     * @return The parsed statement, or null if the header lines could not be found.
+     */
+    public StatementMetadata read() throws IOException {
+        int pageCount;
+        try (PDDocument document = PipelineEvents.loadPdf(pdfFile, password)) {
+            pageCount = document.getNumberOfPages();
+        }
+
+        int chunkCount = (pageCount + pagesPerChunk - 1) / pagesPerChunk;
+        int workerCount = Math.max(1, Math.min(threads, chunkCount));
+        Log.info("\n--- Parsing Transaction Records (%d threads, %d chunks of %d pages) ---",
+                workerCount, chunkCount, pagesPerChunk);
+
+        List<PDDocument> openDocuments = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<PDDocument> workerDocument = new ThreadLocal<>();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-strip-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        StatementWindowParser parser = new StatementWindowParser();
+        try {
+            // Keep a couple of chunks queued per worker so nobody idles, without buffering the whole text
+            int maxInFlight = workerCount * 2;
+            Deque<Future<String>> inFlight = new ArrayDeque<>();
+            int nextChunk = 0;
+            for (int parsedChunks = 0; parsedChunks < chunkCount; parsedChunks++) {
+                while (nextChunk < chunkCount && inFlight.size() < maxInFlight) {
+                    int startPage = nextChunk * pagesPerChunk + 1;
+                    int endPage = Math.min(startPage + pagesPerChunk - 1, pageCount);
+                    inFlight.addLast(pool.submit(() -> stripPages(workerDocument, openDocuments, startPage, endPage)));
+                    nextChunk++;
+                }
+                String chunkText = await(inFlight.removeFirst());
+                int fromRow = parser.getTransactionCount();
+                boolean more = parser.accept(chunkText, parsedChunks == chunkCount - 1);
+                if (listener != null) {
+                    listener.windowParsed(parser.getTransactions(), fromRow, Math.min((parsedChunks + 1) * pagesPerChunk, pageCount), pageCount);
+                }
+                if (!more) {
+                    break;
+                }
+            }
+            inFlight.forEach(future -> future.cancel(true));
+        } finally {
+            pool.shutdownNow();
+            awaitWorkers(pool);
+            closeAll(openDocuments);
+        }
+
+        Log.info("Parsed %d transaction records from %d page(s).", parser.getTransactionCount(), pageCount);
+        Log.info("--- End of Transaction Parsing ---");
+        return parser.finish();
+    }
+
+    private String stripPages(ThreadLocal<PDDocument> workerDocument, List<PDDocument> openDocuments,
+                              int startPage, int endPage) throws IOException {
+        PDDocument document = workerDocument.get();
+        if (document == null) {
+            document = PipelineEvents.loadPdf(pdfFile, password);
+            workerDocument.set(document);
+            openDocuments.add(document);
+        }
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(startPage);
+        stripper.setEndPage(endPage);
+        String text = PipelineEvents.stripText(stripper, document);
+        PdfLoadMode.releasePageResources(document);
+        return text;
+    }
+
+    private static String await(Future<String> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for page text", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to strip page text: " + cause, cause);
+        }
+    }
+
+    private static void awaitWorkers(ExecutorService pool) {
+        try {
+            // Workers must be done with their documents before those are closed
+            if (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                Log.warn("PDF strip workers did not stop within a minute.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeAll(List<PDDocument> documents) {
+        synchronized (documents) {
+            for (PDDocument document : documents) {
+                try {
+                    document.close();
+                } catch (IOException e) {
+                    Log.warn("Could not close worker document: %s", e.getMessage());
+                }
+            }
+            documents.clear();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Supplies the password for each statement PDF in a batch.
+ */
+@FunctionalInterface
+public interface PasswordSource {
+
+    /**
+     * @param pdfFile The statement about to be opened.
+     * @return Its password, or null if it is not encrypted.
+     */
+    String passwordFor(Path pdfFile);
+
+    /**
+     * Uses the same password for every file.
+     */
+    static PasswordSource fixed(String password) {
+        return pdfFile -> password;
+    }
+
+    /**
+     * Reads a properties file mapping file names to passwords, e.g. {@code PhonePe_k.pdf=1234567890}.
+     * A {@code default} entry is used for files that are not listed.
+     */
+    static PasswordSource fromProperties(Path propertiesFile) throws IOException {
+        Properties passwords = new Properties();
+        try (Reader reader = Files.newBufferedReader(propertiesFile)) {
+            passwords.load(reader);
+        }
+        String fallback = passwords.getProperty("default");
+        return pdfFile -> passwords.getProperty(pdfFile.getFileName().toString(), fallback);
+    }
+}
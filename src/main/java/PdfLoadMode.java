@@ -0,0 +1,120 @@
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
+import org.apache.pdfbox.io.RandomAccessStreamCache;
+import org.apache.pdfbox.io.ScratchFile;
+import org.apache.pdfbox.pdmodel.DefaultResourceCache;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * How statement PDFs are opened. The default PDFBox loading keeps every decrypted stream in heap,
+ * which for a statement of several hundred MB needs a heap of about that size. The bounded modes
+ * read the file through a {@link RandomAccessRead} (memory-mapped or buffered, neither of which
+ * copies the file into heap) and keep decrypted streams in a scratch file that holds at most
+ * {@code -Dtracker.pdfHeapBudgetMb} (default 32) MB in heap per open document and spills the rest
+ * to temp files (in {@code -Dtracker.pdfTempDir}, default {@code java.io.tmpdir}).
+ *
+ * Pick a mode with {@code -Dtracker.pdfLoad=auto|default|mapped|buffered}. {@code auto} (the
+ * default) loads files smaller than {@code -Dtracker.pdfLargeFileMb} (default 64) the default way,
+ * which is fastest, and maps larger ones.
+ */
+public enum PdfLoadMode {
+    /** {@code Loader.loadPDF(file, password)}: file read through a buffer, decrypted streams in heap. */
+    DEFAULT,
+    /** File memory-mapped (outside the heap), decrypted streams within the heap budget. */
+    MAPPED,
+    /** File read through a small page cache, decrypted streams within the heap budget; for files over 2 GB. */
+    BUFFERED,
+    /** {@link #DEFAULT} for small files, {@link #MAPPED} for large ones. */
+    AUTO;
+
+    private static final long HEAP_BUDGET_BYTES = Long.getLong("tracker.pdfHeapBudgetMb", 32) << 20;
+    private static final long LARGE_FILE_BYTES = Long.getLong("tracker.pdfLargeFileMb", 64) << 20;
+    private static final String TEMP_DIR = System.getProperty("tracker.pdfTempDir");
+
+    private static final PdfLoadMode CONFIGURED = parse(System.getProperty("tracker.pdfLoad", "auto"));
+
+    /**
+     * @return The mode set with {@code -Dtracker.pdfLoad}.
+     */
+    public static PdfLoadMode configured() {
+        return CONFIGURED;
+    }
+
+    private static PdfLoadMode parse(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Log.warn("Unknown tracker.pdfLoad '%s', using auto.", name);
+            return AUTO;
+        }
+    }
+
+    /**
+     * Opens and decrypts a PDF in this mode.
+     * @param password The user password, or null if the file is not encrypted.
+     */
+    public PDDocument load(File file, String password) throws IOException {
+        PdfLoadMode mode = resolve(file);
+        if (mode == DEFAULT) {
+            return Loader.loadPDF(file, password);
+        }
+        RandomAccessRead source = mode == MAPPED
+                ? new RandomAccessReadMemoryMappedFile(file)
+                : new RandomAccessReadBufferedFile(file);
+        try {
+            PDDocument document = Loader.loadPDF(source, password, null, null, boundedStreamCache());
+            document.setResourceCache(new ReleasableResourceCache());
+            return document;
+        } catch (IOException | RuntimeException e) {
+            source.close(); // Closed with the document otherwise
+            throw e;
+        }
+    }
+
+    /**
+     * @return The mode actually used for this file.
+     */
+    PdfLoadMode resolve(File file) {
+        if (this == AUTO) {
+            return file.length() >= LARGE_FILE_BYTES ? MAPPED.resolve(file) : DEFAULT;
+        }
+        if (this == MAPPED && file.length() > Integer.MAX_VALUE) {
+            return BUFFERED; // A single mapping cannot be larger than 2 GB
+        }
+        return this;
+    }
+
+    private static RandomAccessStreamCache.StreamCacheCreateFunction boundedStreamCache() {
+        MemoryUsageSetting setting = MemoryUsageSetting.setupMixed(HEAP_BUDGET_BYTES);
+        if (TEMP_DIR != null) {
+            setting = setting.setTempDir(new File(TEMP_DIR));
+        }
+        MemoryUsageSetting scratchSetting = setting;
+        return () -> new ScratchFile(scratchSetting);
+    }
+
+    /**
+     * Resource cache of a document opened in a bounded mode, which {@link #releasePageResources} may drop.
+     */
+    private static final class ReleasableResourceCache extends DefaultResourceCache {
+    }
+
+    /**
+     * Drops the fonts, images and other page resources PDFBox cached while stripping earlier pages,
+     * so a long statement does not accumulate them; pages stripped afterwards load what they need
+     * again. Only for documents opened {@link #MAPPED} or {@link #BUFFERED}, where heap is the limit:
+     * re-parsing the statement's fonts for every window made {@link #DEFAULT} stripping about 40% slower.
+     */
+    public static void releasePageResources(PDDocument document) {
+        if (document.getResourceCache() instanceof ReleasableResourceCache) {
+            document.setResourceCache(new ReleasableResourceCache());
+        }
+    }
+}
@@ -4,15 +4,28 @@ import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.PieChart;
+import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.TextField;
 import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.util.StringConverter;
 
 import javafx.application.Application;
 import javafx.collections.FXCollections;
@@ -24,10 +37,7 @@ import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class PieChartApp extends Application {
     // --- UI Controls ---
@@ -35,16 +45,46 @@ public class PieChartApp extends Application {
     private DatePicker endDatePicker;
     private Button filterButton;
     private PieChart chart; // Make chart a field
+    private ProgressBar progressBar; // Shown while the statement is still being read
+    private Label progressLabel;
+    private TextField searchField; // Filters the transaction list as the user types
+    private ListView<String> searchResults;
+    private Label searchStatus;
+    private TabPane tabs;
+    private Tab transactionsTab;
+    private LineChart<Number, Number> timeChart; // Spending over time; x is the epoch day
+    private NumberAxis dayAxis;
+    private final XYChart.Series<Number, Number> spendingSeries = new XYChart.Series<>();
 
     // --- Data ---
     private static StatementMetadata statementData; // Keep original full data
-    private List<TransactionRecord> originalTransactions; // Store the full list
+    private static StatementLoadTask statementLoader; // Reads the statement in the background, if not loaded yet
+    private SpendingEngine engine; // All transactions and their aggregates, grows while the statement loads
+    private boolean filterApplied; // Once the user filtered, new rows keep their range instead of widening it
     private ObservableList<PieChart.Data> pieChartData; // Data currently shown
+    private final Map<String, Slice> slices = new HashMap<>(); // Category -> its slice in pieChartData
+    private long viewStartDay; // Day range shown in the time chart; zooming and panning change it
+    private long viewEndDay;
+    private static final int MAX_SEARCH_RESULTS = 500; // Rows listed for a search; all matches are counted
+    private double dragSceneX; // Where a pan started
+    private long dragStartDay;
 
-    // --- Date Formatting ---
-    // IMPORTANT: Adjust the pattern to EXACTLY match the date format in your PDF text
-    // Example: "Apr 19, 2024" -> "MMM dd, yyyy"
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy", Locale.ENGLISH);
+    /**
+     * A slice and its tooltip. The tooltip is installed exactly once, when the chart creates the slice's node.
+     */
+    private static class Slice {
+        final PieChart.Data data;
+        final Tooltip tooltip = new Tooltip();
+
+        Slice(String label, double value) {
+            data = new PieChart.Data(label, value);
+            data.nodeProperty().addListener((obs, oldNode, newNode) -> {
+                if (newNode != null) {
+                    Tooltip.install(newNode, tooltip);
+                }
+            });
+        }
+    }
 
 
     // Static method for App.java to set the data before launching
@@ -52,10 +92,17 @@ public class PieChartApp extends Application {
         statementData = data;
     }
 
+    /**
+     * Sets a task that reads the statement once the window is open; its transactions are shown as they are parsed.
+     */
+    public static void setStatementLoader(StatementLoadTask loader) {
+        statementLoader = loader;
+    }
+
     @Override
     public void start(Stage primaryStage) {
         // --- Initial Data Check ---
-        if (statementData == null || statementData.getTransactions() == null) {
+        if (statementLoader == null && (statementData == null || statementData.getTransactionTable() == null)) {
             showError("No transaction data loaded.");
             primaryStage.setTitle("Spending Chart - Error");
             StackPane root = new StackPane(new Label("Could not load transaction data."));
@@ -64,8 +111,8 @@ public class PieChartApp extends Application {
             return;
         }
 
-        // Store the original list
-        originalTransactions = new ArrayList<>(statementData.getTransactions()); // Make a copy if needed
+        // Store the original list; while loading it starts empty and is filled batch by batch
+        engine = statementLoader != null ? new SpendingEngine() : new SpendingEngine(statementData.getTransactionTable());
 
         // --- Create UI Controls ---
         startDatePicker = new DatePicker();
@@ -82,6 +129,7 @@ public class PieChartApp extends Application {
         chart.setTitle("Spending by Category/Recipient");
         chart.setLegendSide(Side.LEFT);
         chart.setLabelsVisible(false);
+        createTimeChart();
 
         // --- Layout ---
         // Control bar at the top
@@ -93,22 +141,48 @@ public class PieChartApp extends Application {
                 new Label("To:"), endDatePicker,
                 filterButton
         );
+        searchField = new TextField();
+        searchField.setPromptText("Search description, UTR or ID");
+        searchField.setPrefWidth(220);
+        searchField.textProperty().addListener((obs, oldText, newText) -> refreshSearch());
+        filterBox.getChildren().add(searchField);
+        progressBar = new ProgressBar(ProgressBar.INDETERMINATE_PROGRESS);
+        progressLabel = new Label();
+        if (statementLoader != null) {
+            filterBox.getChildren().addAll(progressBar, progressLabel);
+        }
 
         // Main layout
         BorderPane root = new BorderPane();
         root.setTop(filterBox);
-        root.setCenter(chart);
+        Tab categoriesTab = new Tab("By Category", chart);
+        categoriesTab.setClosable(false);
+        Tab timeTab = new Tab("Over Time", timeChart);
+        timeTab.setClosable(false);
+        searchResults = new ListView<>();
+        searchResults.setPlaceholder(new Label("Type in the search box to find transactions."));
+        searchStatus = new Label();
+        VBox transactionsBox = new VBox(5, searchStatus, searchResults);
+        transactionsBox.setPadding(new Insets(5));
+        VBox.setVgrow(searchResults, Priority.ALWAYS);
+        transactionsTab = new Tab("Transactions", transactionsBox);
+        transactionsTab.setClosable(false);
+        tabs = new TabPane(categoriesTab, timeTab, transactionsTab);
+        root.setCenter(tabs);
 
         // --- Set Button Action ---
         filterButton.setOnAction(event -> applyFilter());
 
         // --- Initial Chart Population ---
-        if (originalTransactions.isEmpty()) {
-            System.out.println("No transactions found in the provided data.");
+        if (statementLoader != null) {
+            chart.setTitle("Spending by Category/Recipient (Loading...)");
+            startLoading();
+        } else if (engine.size() == 0) {
+            Log.info("No transactions found in the provided data.");
             chart.setTitle("Spending by Category/Recipient (No Transactions)");
         } else {
             // Populate chart initially with all data
-            updateChart(originalTransactions);
+            updateChart(engine.summarizeAll(SpendingEngine.DEFAULT_TOP_CATEGORIES));
             // Optionally set default date picker values (e.g., min/max dates from data)
             setInitialDateRange();
         }
@@ -121,29 +195,79 @@ public class PieChartApp extends Application {
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        if (statementLoader != null) {
+            statementLoader.cancel(); // Stop parsing pages nobody will see
+        }
+    }
+
     /**
-     * Sets the initial date range in the pickers based on the transaction data.
+     * Starts reading the statement on a background thread, streaming its transactions into the chart.
      */
-    private void setInitialDateRange() {
-        if (originalTransactions == null || originalTransactions.isEmpty()) return;
+    private void startLoading() {
+        StatementLoadTask loader = statementLoader;
+        progressBar.progressProperty().bind(loader.progressProperty());
+        progressLabel.textProperty().bind(loader.messageProperty());
+        loader.setBatchHandler(this::addBatches);
+        loader.setOnSucceeded(event -> {
+            loader.deliverPendingBatches();
+            statementData = loader.getValue();
+            // The engine now holds every row; drop the parser's table so the statement is not kept in the heap twice
+            statementData.setTransactionTable(engine.getTransactions());
+            Log.info("\n--- Extracted Metadata ---");
+            Log.info(String.valueOf(statementData));
+            finishLoading();
+        });
+        loader.setOnFailed(event -> {
+            loader.deliverPendingBatches();
+            showError("Could not read " + loader.getPdfFile() + ": " + loader.getException());
+            finishLoading();
+        });
 
-        LocalDate minDate = null;
-        LocalDate maxDate = null;
+        Thread thread = new Thread(loader, "statement-loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-        for (TransactionRecord record : originalTransactions) {
-            LocalDate date = parseDate(record.getValue(App.COL_DATE));
-            if (date != null) {
-                if (minDate == null || date.isBefore(minDate)) {
-                    minDate = date;
-                }
-                if (maxDate == null || date.isAfter(maxDate)) {
-                    maxDate = date;
-                }
-            }
+    /**
+     * Adds newly parsed transactions and refreshes the chart once for all of them. Runs on the FX thread.
+     */
+    private void addBatches(List<TransactionTable> batches) {
+        for (TransactionTable batch : batches) {
+            engine.addAll(batch);
+        }
+        if (!filterApplied) {
+            setInitialDateRange();
         }
+        refreshChart();
+        if (!searchField.getText().isEmpty()) {
+            refreshSearch(); // New rows may match
+        }
+    }
+
+    private void finishLoading() {
+        progressBar.progressProperty().unbind();
+        progressLabel.textProperty().unbind();
+        progressBar.setVisible(false);
+        progressBar.setManaged(false);
+        progressLabel.setText(engine.size() + " transactions");
+        if (engine.size() == 0) {
+            Log.info("No transactions found in the provided data.");
+            chart.setTitle("Spending by Category/Recipient (No Transactions)");
+        } else {
+            refreshChart();
+        }
+    }
+
+    /**
+     * Sets the initial date range in the pickers based on the transaction data.
+     */
+    private void setInitialDateRange() {
+        if (!engine.hasDates()) return; // No dated transactions (yet)
 
-        startDatePicker.setValue(minDate);
-        endDatePicker.setValue(maxDate);
+        startDatePicker.setValue(LocalDate.ofEpochDay(engine.getMinDay()));
+        endDatePicker.setValue(LocalDate.ofEpochDay(engine.getMaxDay()));
     }
 
 
@@ -151,161 +275,255 @@ public class PieChartApp extends Application {
      * Filters transactions based on selected dates and updates the chart.
      */
     private void applyFilter() {
+        Log.debug("Filtering from %s to %s", startDatePicker.getValue(), endDatePicker.getValue());
+        filterApplied = true;
+        refreshChart();
+    }
+
+    /**
+     * Updates the chart for the current date range: everything until the user filtered, the pickers' range after.
+     */
+    private void refreshChart() {
+        if (engine == null) {
+            showError("Original transaction data is missing.");
+            return;
+        }
+        if (!filterApplied) {
+            updateChart(engine.summarizeAll(SpendingEngine.DEFAULT_TOP_CATEGORIES));
+            setTimeView(Long.MIN_VALUE, Long.MAX_VALUE);
+            return;
+        }
         LocalDate startDate = startDatePicker.getValue();
         LocalDate endDate = endDatePicker.getValue();
 
-        System.out.println("Filtering from " + startDate + " to " + endDate);
+        long startDay = (startDate == null) ? Long.MIN_VALUE : startDate.toEpochDay();
+        long endDay = (endDate == null) ? Long.MAX_VALUE : endDate.toEpochDay();
+        updateChart(engine.summarize(startDay, endDay, SpendingEngine.DEFAULT_TOP_CATEGORIES));
+        setTimeView(startDay, endDay);
+    }
+
+    // --- Search ---
 
-        if (originalTransactions == null) {
-            showError("Original transaction data is missing.");
+    /**
+     * Lists the transactions matching the search box, switching to the list when a search starts.
+     */
+    private void refreshSearch() {
+        String query = searchField.getText();
+        if (query == null || query.trim().isEmpty()) {
+            searchResults.getItems().clear();
+            searchStatus.setText("");
             return;
         }
+        long start = System.nanoTime();
+        TransactionSearchIndex.Result result = engine.search(query, MAX_SEARCH_RESULTS);
+        long micros = (System.nanoTime() - start) / 1_000;
+        TransactionTable transactions = engine.getTransactions();
+        List<String> lines = new ArrayList<>(result.getRows().length);
+        for (int row : result.getRows()) {
+            lines.add(describe(transactions, row));
+        }
+        searchResults.getItems().setAll(lines);
+        searchStatus.setText(result.getTotalMatches() > lines.size()
+                ? String.format("%,d matches, showing the first %,d (%d \u00b5s)", result.getTotalMatches(), lines.size(), micros)
+                : String.format("%,d matches (%d \u00b5s)", result.getTotalMatches(), micros));
+        if (tabs.getSelectionModel().getSelectedItem() != transactionsTab) {
+            tabs.getSelectionModel().select(transactionsTab);
+        }
+    }
 
-        // Filter the original list
-        List<TransactionRecord> filteredTransactions = originalTransactions.stream()
-                .filter(record -> {
-                    LocalDate transactionDate = parseDate(record.getValue(App.COL_DATE));
-                    if (transactionDate == null) {
-                        return false; // Skip records with unparseable dates
-                    }
+    private static String describe(TransactionTable transactions, int row) {
+        long amount = transactions.getAmountMinor(row);
+        return transactions.getDate(row) + " " + transactions.getTime(row)
+                + "  " + transactions.getDescription(row)
+                + "  " + transactions.getType(row) + " " + (amount == TransactionTable.NO_AMOUNT ? transactions.getAmountText(row) : Money.format(amount))
+                + "  ID " + transactions.getTransactionId(row)
+                + "  UTR " + transactions.getUtr(row);
+    }
 
-                    // Check against start date (if selected)
-                    boolean afterOrOnStartDate = (startDate == null) || !transactionDate.isBefore(startDate);
-                    // Check against end date (if selected)
-                    boolean beforeOrOnEndDate = (endDate == null) || !transactionDate.isAfter(endDate);
+    // --- Time chart ---
 
-                    return afterOrOnStartDate && beforeOrOnEndDate;
-                })
-                .collect(Collectors.toList());
+    /**
+     * Creates the line chart of spending over time. Scrolling zooms around the mouse, dragging pans.
+     */
+    private void createTimeChart() {
+        dayAxis = new NumberAxis();
+        dayAxis.setAutoRanging(false);
+        dayAxis.setAnimated(false);
+        dayAxis.setMinorTickVisible(false);
+        dayAxis.setTickLabelFormatter(new StringConverter<Number>() {
+            @Override
+            public String toString(Number epochDay) {
+                return LocalDate.ofEpochDay(epochDay.longValue()).toString();
+            }
 
-        System.out.println("Found " + filteredTransactions.size() + " transactions in the selected range.");
+            @Override
+            public Number fromString(String date) {
+                return LocalDate.parse(date).toEpochDay();
+            }
+        });
+        NumberAxis amountAxis = new NumberAxis();
+        amountAxis.setLabel("Spent (INR)");
+        amountAxis.setAnimated(false);
+
+        timeChart = new LineChart<>(dayAxis, amountAxis);
+        timeChart.setTitle("Spending over Time");
+        timeChart.setCreateSymbols(false); // Thousands of symbol nodes would be the slow part
+        timeChart.setAnimated(false);
+        timeChart.setLegendVisible(false);
+        timeChart.getData().add(spendingSeries);
+        timeChart.setOnScroll(this::zoomTimeChart);
+        timeChart.setOnMousePressed(event -> {
+            dragSceneX = event.getSceneX();
+            dragStartDay = viewStartDay;
+        });
+        timeChart.setOnMouseDragged(this::panTimeChart);
+        timeChart.widthProperty().addListener((obs, oldWidth, newWidth) -> refreshTimeChart()); // One point per pixel
+    }
 
-        // Update the chart with the filtered data
-        updateChart(filteredTransactions);
+    /**
+     * Shows an inclusive day range in the time chart, clamped to the dates of the data.
+     */
+    private void setTimeView(long startDay, long endDay) {
+        if (engine == null || !engine.hasDates()) {
+            return;
+        }
+        long minDay = engine.getMinDay();
+        long maxDay = engine.getMaxDay();
+        long start = Math.max(startDay, minDay);
+        long span = Math.max(0, Math.min(Math.min(endDay, maxDay) - start, maxDay - minDay));
+        start = Math.max(minDay, Math.min(start, maxDay - span));
+        viewStartDay = start;
+        viewEndDay = start + span;
+        refreshTimeChart();
     }
 
     /**
-     * Parses a date string using the defined DATE_FORMATTER.
-     * @param dateString The date string from the transaction record.
-     * @return The parsed LocalDate, or null if parsing fails.
+     * Redraws the time chart for the current view from the rollups, with at most one point per pixel.
      */
-    private LocalDate parseDate(String dateString) {
-        if (dateString == null || dateString.trim().isEmpty()) {
-            return null;
+    private void refreshTimeChart() {
+        if (engine == null || !engine.hasDates()) {
+            spendingSeries.getData().clear();
+            return;
         }
-        try {
-            // Handle potential multi-line dates if they were concatenated with space
-            dateString = dateString.replace("\n", " ").replace("\r", ""); // Clean newlines just in case
-            return LocalDate.parse(dateString.trim(), DATE_FORMATTER);
-        } catch (DateTimeParseException e) {
-            System.err.println("Warning: Could not parse date: '" + dateString + "' - " + e.getMessage());
-            return null; // Return null if parsing fails
+        int maxPoints = (int) Math.max(100, dayAxis.getWidth() > 0 ? dayAxis.getWidth() : timeChart.getWidth());
+        SpendingTimeSeries.Plot plot = engine.getTimeSeries().plot(viewStartDay, viewEndDay, maxPoints);
+        List<XYChart.Data<Number, Number>> points = new ArrayList<>(plot.size());
+        for (int i = 0; i < plot.size(); i++) {
+            points.add(new XYChart.Data<>(plot.getDay(i), Money.toRupees(plot.getTotalPaise(i))));
         }
+        spendingSeries.getData().setAll(points);
+        dayAxis.setLowerBound(viewStartDay);
+        dayAxis.setUpperBound(Math.max(viewEndDay, viewStartDay + 1));
+        dayAxis.setTickUnit(Math.max(1, (viewEndDay - viewStartDay) / 8));
+        timeChart.setTitle("Spending per " + plot.getResolution().name().toLowerCase(Locale.ROOT)
+                + " (" + LocalDate.ofEpochDay(viewStartDay) + " to " + LocalDate.ofEpochDay(viewEndDay) + ")");
     }
 
+    /**
+     * Zooms in or out by 25% around the day under the mouse; a week is the smallest view.
+     */
+    private void zoomTimeChart(ScrollEvent event) {
+        if (event.getDeltaY() == 0 || engine == null || !engine.hasDates()) {
+            return;
+        }
+        double factor = event.getDeltaY() > 0 ? 0.8 : 1.25;
+        double mouseX = dayAxis.sceneToLocal(event.getSceneX(), event.getSceneY()).getX();
+        double center = dayAxis.getValueForDisplay(mouseX).doubleValue();
+        long span = viewEndDay - viewStartDay;
+        long newSpan = Math.max(7, Math.round(span * factor));
+        long start = Math.round(center - (center - viewStartDay) * newSpan / (double) Math.max(1, span));
+        setTimeView(start, start + newSpan);
+    }
+
+    private void panTimeChart(MouseEvent event) {
+        if (engine == null || !engine.hasDates() || dayAxis.getWidth() <= 0) {
+            return;
+        }
+        long span = viewEndDay - viewStartDay;
+        long shift = Math.round((dragSceneX - event.getSceneX()) / dayAxis.getWidth() * span);
+        setTimeView(dragStartDay + shift, dragStartDay + shift + span);
+    }
 
     /**
-     * Updates the PieChart with data aggregated from the given list of transactions.
-     * @param transactionsToDisplay The list of transactions to include in the chart.
+     * Updates the PieChart with a spending summary.
+     * Slices are diffed against the ones already shown: categories that stay keep their
+     * {@link PieChart.Data} (and node) and only get a new value and label, so a refresh does not
+     * recreate nodes or restart animations.
+     * @param summary The largest categories and "Other", from the engine.
      */
-    private void updateChart(List<TransactionRecord> transactionsToDisplay) {
-        // 1. Aggregate Spending Data from the filtered list
-        Map<String, Double> spendingByCategory = aggregateSpending(transactionsToDisplay);
-
-        // 2. Prepare Data for Pie Chart
-        ObservableList<PieChart.Data> newPieChartData = FXCollections.observableArrayList();
-        int limit = 15; // Max categories to show directly
-        double totalValue = spendingByCategory.values().stream().mapToDouble(Double::doubleValue).sum(); // Calculate total for percentage (optional)
-
-        spendingByCategory.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed()) // Sort by amount descending
-                .limit(limit)
-                .forEach(entry -> {
-                    // Format label: "Category: Amount (Percentage%)"
-                    double percentage = (totalValue > 0) ? (entry.getValue() * 100.0 / totalValue) : 0.0;
-                    String label = String.format("%s: %.2f (%.1f%%)", entry.getKey(), entry.getValue(), percentage);
-                    newPieChartData.add(new PieChart.Data(label, entry.getValue()));
-                });
-
-        // Handle remaining categories ("Other")
-        if (spendingByCategory.size() > limit) {
-            double otherAmount = spendingByCategory.entrySet().stream()
-                    .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-                    .skip(limit)
-                    .mapToDouble(Map.Entry::getValue)
-                    .sum();
-            if (otherAmount > 0) {
-                double percentage = (totalValue > 0) ? (otherAmount * 100.0 / totalValue) : 0.0;
-                String label = String.format("Other: %.2f (%.1f%%)", otherAmount, percentage);
-                newPieChartData.add(new PieChart.Data(label, otherAmount));
+    private void updateChart(SpendingSummary summary) {
+        PipelineEvents.ChartUpdate event = new PipelineEvents.ChartUpdate();
+        event.start();
+        // 1. Update surviving slices in place, create the new ones (largest first)
+        Set<String> shown = new HashSet<>();
+        List<PieChart.Data> added = new ArrayList<>();
+        for (SpendingSummary.Slice slice : summary.getSlices()) {
+            // Format label: "Category: Amount (Percentage%)"
+            SpendingSketches.Stats stats = slice.getStats();
+            String label = String.format("%s: %s (%.1f%%)", slice.getName(), Money.format(slice.getAmountPaise()), slice.getPercentage());
+            if (stats != null) {
+                label += String.format(", ~%d merchant%s, median %s", stats.getDistinctMerchants(),
+                        stats.getDistinctMerchants() == 1 ? "" : "s", Money.format(stats.getP50Paise()));
             }
+            showSlice(slice.getKey(), label, slice.getAmountPaise(), stats, shown, added);
         }
 
-        // 3. Update the chart's data
-        pieChartData.setAll(newPieChartData); // Efficiently update the list
+        // 2. Drop slices whose category is no longer shown
+        List<PieChart.Data> removed = new ArrayList<>();
+        for (Iterator<Map.Entry<String, Slice>> it = slices.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Slice> slice = it.next();
+            if (!shown.contains(slice.getKey())) {
+                removed.add(slice.getValue().data);
+                it.remove();
+            }
+        }
+        if (!removed.isEmpty()) {
+            pieChartData.removeAll(removed);
+        }
+        if (!added.isEmpty()) {
+            pieChartData.addAll(added);
+        }
 
         // Update title based on whether data is present
-        if (transactionsToDisplay.isEmpty()) {
+        if (summary.getTransactionCount() == 0) {
             chart.setTitle("Spending by Category/Recipient (No data in range)");
         } else {
             chart.setTitle("Spending by Category/Recipient");
         }
-
-
-        // Re-apply tooltips if needed (nodes might be recreated)
-        pieChartData.forEach(data -> {
-            String tooltipText = String.format("%.2f", data.getPieValue());
-            Tooltip tooltip = new Tooltip(tooltipText);
-            // Tooltip might need to be installed slightly differently if nodes change significantly,
-            // but often works directly on the data object's node property after update.
-            if (data.getNode() != null) {
-                Tooltip.install(data.getNode(), tooltip);
-            } else {
-                // If node is null initially, listen for changes (more complex)
-                data.nodeProperty().addListener((obs, oldNode, newNode) -> {
-                    if (newNode != null) {
-                        Tooltip.install(newNode, tooltip);
-                    }
-                });
-            }
-        });
+        PipelineEvents.chartUpdated(event, summary.getCategoryCount(), added.size(), removed.size(), summary.getTransactionCount());
     }
 
-
     /**
-     * Aggregates spending from transactions based on description.
-     * (This method remains largely the same, just operates on the provided list)
-     * @param transactions List of TransactionRecord objects to aggregate.
-     * @return Map where key is description (category) and value is total debit amount.
+     * Shows one slice, reusing the existing one for this key if there is one.
+     * @param added Receives the slice's data if it had to be created.
      */
-    private Map<String, Double> aggregateSpending(List<TransactionRecord> transactions) {
-        Map<String, Double> spendingMap = new HashMap<>();
-
-        for (TransactionRecord record : transactions) {
-            String type = record.getValue(App.COL_TYPE);
-            String description = record.getValue(App.COL_DESCRIPTION);
-            String amountStr = record.getValue(App.COL_AMOUNT);
-
-            if (type != null && type.equalsIgnoreCase("Debit") && description != null && amountStr != null) {
-                try {
-                    double amount = Double.parseDouble(amountStr.replace(",", ""));
-                    String category = description.trim();
-                    if (category.toLowerCase().startsWith("paid to ")) {
-                        category = category.substring(8).trim();
-                    }
-                    // Further category refinement could happen here (e.g., mapping keywords)
-                    spendingMap.put(category, spendingMap.getOrDefault(category, 0.0) + amount);
-                } catch (NumberFormatException e) {
-                    System.err.println("Warning: Could not parse amount '" + amountStr + "' for description '" + description + "'. Skipping aggregation.");
-                }
+    private void showSlice(String key, String label, long amountPaise, SpendingSketches.Stats stats,
+                           Set<String> shown, List<PieChart.Data> added) {
+        double value = Money.toRupees(amountPaise);
+        Slice slice = slices.get(key);
+        if (slice == null) {
+            slice = new Slice(label, value);
+            slices.put(key, slice);
+            added.add(slice.data);
+        } else {
+            if (slice.data.getPieValue() != value) {
+                slice.data.setPieValue(value);
+            }
+            if (!label.equals(slice.data.getName())) {
+                slice.data.setName(label);
             }
         }
-        return spendingMap;
+        slice.tooltip.setText(stats == null ? Money.format(amountPaise)
+                : String.format("%s in %,d debits%n~%,d distinct merchants%np50 %s, p90 %s, p99 %s", Money.format(amountPaise),
+                        stats.getDebitCount(), stats.getDistinctMerchants(), Money.format(stats.getP50Paise()),
+                        Money.format(stats.getP90Paise()), Money.format(stats.getP99Paise())));
+        shown.add(key);
     }
 
+
     /** Helper to show error messages (optional) */
     private void showError(String message) {
         // Could use javafx.scene.control.Alert for a proper dialog
-        System.err.println("Error: " + message);
+        Log.error(message);
     }
 }
\ No newline at end of file
@@ -0,0 +1,215 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Flight Recorder events for the pipeline stages, and helpers that run or finish a stage while
+ * emitting its event and recording its duration and counts in {@link Metrics}.
+ * Record with e.g. {@code -XX:StartFlightRecording=filename=tracker.jfr}; the events show up under
+ * "PhonePe Tracker" in JDK Mission Control. Without a recording the events cost next to nothing.
+ */
+public final class PipelineEvents {
+
+    private PipelineEvents() {
+    }
+
+    /**
+     * Base of the stage events: remembers when the stage started, for the metrics histogram.
+     */
+    abstract static class StageEvent extends Event {
+        private transient long startNanos; // Transient fields are not recorded
+
+        final void start() {
+            startNanos = System.nanoTime();
+            begin();
+        }
+
+        final void stop(String stage) {
+            end();
+            Metrics.histogram(stage).recordSince(startNanos);
+        }
+    }
+
+    @Name("phonepe.PdfLoad")
+    @Label("PDF Load")
+    @Category({"PhonePe Tracker", "Pipeline"})
+    @Description("Opening a PDF, including decryption")
+    public static class PdfLoad extends StageEvent {
+        @Label("File")
+        String file;
+        @Label("File Size")
+        @DataAmount
+        long bytes;
+        @Label("Pages")
+        int pages;
+        @Label("Encrypted")
+        boolean encrypted;
+        @Label("Load Mode")
+        String mode;
+    }
+
+    @Name("phonepe.TextExtraction")
+    @Label("Text Extraction")
+    @Category({"PhonePe Tracker", "Pipeline"})
+    @Description("PDFTextStripper.getText for a range of pages")
+    public static class TextExtraction extends StageEvent {
+        @Label("Start Page")
+        int startPage;
+        @Label("End Page")
+        int endPage;
+        @Label("Characters")
+        long characters;
+    }
+
+    @Name("phonepe.Parse")
+    @Label("Transaction Parsing")
+    @Category({"PhonePe Tracker", "Pipeline"})
+    @Description("Tokenizing statement text into transaction records")
+    public static class Parse extends StageEvent {
+        @Label("Characters")
+        long characters;
+        @Label("Records")
+        int records;
+        @Label("Parse Failures")
+        @Description("Records skipped because they could not be parsed")
+        int parseFailures;
+    }
+
+    @Name("phonepe.Aggregation")
+    @Label("Spending Aggregation")
+    @Category({"PhonePe Tracker", "Pipeline"})
+    @Description("Adding rows to the spending cube")
+    public static class Aggregation extends StageEvent {
+        @Label("Rows")
+        int rows;
+        @Label("Categories")
+        int categories;
+    }
+
+    @Name("phonepe.ChartUpdate")
+    @Label("Chart Update")
+    @Category({"PhonePe Tracker", "UI"})
+    @Description("Updating the pie chart slices on the FX thread")
+    public static class ChartUpdate extends StageEvent {
+        @Label("Categories")
+        int categories;
+        @Label("Slices Added")
+        int slicesAdded;
+        @Label("Slices Removed")
+        int slicesRemoved;
+        @Label("Transactions")
+        int transactions;
+    }
+
+    /**
+     * Opening a PDF in the configured {@link PdfLoadMode} as a recorded stage.
+     */
+    public static PDDocument loadPdf(File file, String password) throws IOException {
+        PdfLoad event = new PdfLoad();
+        event.start();
+        PdfLoadMode mode = PdfLoadMode.configured();
+        PDDocument document = mode.load(file, password);
+        event.stop("pdf.load");
+        int pages = document.getNumberOfPages();
+        Metrics.counter("pdf.pages").add(pages);
+        Metrics.counter("pdf.bytes").add(file.length());
+        if (event.shouldCommit()) {
+            event.file = file.getPath();
+            event.bytes = file.length();
+            event.pages = pages;
+            event.encrypted = document.isEncrypted();
+            event.mode = mode.resolve(file).name();
+            event.commit();
+        }
+        return document;
+    }
+
+    /**
+     * {@code stripper.getText(document)} as a recorded stage, for the stripper's current page range.
+     */
+    public static String stripText(PDFTextStripper stripper, PDDocument document) throws IOException {
+        TextExtraction event = new TextExtraction();
+        event.start();
+        String text = stripper.getText(document);
+        event.stop("text.extract");
+        Metrics.counter("text.characters").add(text.length());
+        if (event.shouldCommit()) {
+            event.startPage = stripper.getStartPage();
+            event.endPage = stripper.getEndPage();
+            event.characters = text.length();
+            event.commit();
+        }
+        return text;
+    }
+
+    /**
+     * A window of {@link LayoutTextStripper} pages as a recorded stage; words are parsed into records
+     * while the pages are stripped, so this covers both text extraction and parsing.
+     */
+    public static void stripLayout(LayoutTextStripper stripper, PDDocument document, StatementLayoutParser parser) throws IOException {
+        TextExtraction event = new TextExtraction();
+        event.start();
+        int records = parser.getTransactionCount();
+        int parseFailures = parser.getErrorCount();
+        stripper.writeText(document, Writer.nullWriter());
+        event.stop("text.extract");
+        Metrics.counter("parse.records").add(parser.getTransactionCount() - records);
+        Metrics.counter("parse.failures").add(parser.getErrorCount() - parseFailures);
+        if (event.shouldCommit()) {
+            event.startPage = stripper.getStartPage();
+            event.endPage = stripper.getEndPage();
+            event.commit();
+        }
+    }
+
+    /**
+     * Finishes a parse started with {@link Parse#start()}.
+     */
+    static void parsed(Parse event, long characters, int records, int parseFailures) {
+        event.stop("parse");
+        Metrics.counter("parse.records").add(records);
+        Metrics.counter("parse.failures").add(parseFailures);
+        if (event.shouldCommit()) {
+            event.characters = characters;
+            event.records = records;
+            event.parseFailures = parseFailures;
+            event.commit();
+        }
+    }
+
+    /**
+     * Finishes an aggregation started with {@link Aggregation#start()}.
+     */
+    static void aggregated(Aggregation event, int rows, int categories) {
+        event.stop("aggregate");
+        Metrics.counter("aggregate.rows").add(rows);
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.categories = categories;
+            event.commit();
+        }
+    }
+
+    /**
+     * Finishes a chart update started with {@link ChartUpdate#start()}.
+     */
+    static void chartUpdated(ChartUpdate event, int categories, int slicesAdded, int slicesRemoved, int transactions) {
+        event.stop("chart.update");
+        if (event.shouldCommit()) {
+            event.categories = categories;
+            event.slicesAdded = slicesAdded;
+            event.slicesRemoved = slicesRemoved;
+            event.transactions = transactions;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch with relative accuracy (DDSketch, Masson et al., 2019): values are
+ * counted in logarithmic buckets whose bounds grow by a factor of about 1.02, so any quantile is
+ * returned within 1% of the true value whatever its magnitude, and merging two sketches just adds
+ * their counts. Only non-empty buckets are stored, as sorted arrays; amounts from 1 paisa to a
+ * crore of rupees need at most about 1,400 of them, and a day of one category a handful.
+ */
+public final class QuantileSketch {
+
+    private static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int ZERO_KEY = Integer.MIN_VALUE; // Key of values below 1
+
+    private int[] keys = new int[4]; // Bucket k holds values in (GAMMA^(k-1), GAMMA^k]
+    private long[] counts = new long[4];
+    private int size;
+    private long zeroCount; // Values below 1
+    private long count;
+
+    /**
+     * Adds a value; values below 1 are counted as 0.
+     */
+    public void add(long value) {
+        addKey(keyOf(value));
+    }
+
+    /**
+     * @return The bucket of a value, for {@link #addKey(int)}; saves the logarithm when one value goes into several sketches.
+     */
+    static int keyOf(long value) {
+        return value < 1 ? ZERO_KEY : (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    /**
+     * Adds a value by its {@link #keyOf(long)}.
+     */
+    void addKey(int key) {
+        count++;
+        if (key == ZERO_KEY) {
+            zeroCount++;
+        } else {
+            add(key, 1);
+        }
+    }
+
+    /**
+     * Adds the values of another sketch.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.size == 0) {
+            zeroCount += other.zeroCount;
+            count += other.count;
+            return;
+        }
+        int[] mergedKeys = new int[size + other.size];
+        long[] mergedCounts = new long[size + other.size];
+        int merged = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                mergedKeys[merged] = keys[i];
+                mergedCounts[merged++] = counts[i++];
+            } else if (i == size || other.keys[j] < keys[i]) {
+                mergedKeys[merged] = other.keys[j];
+                mergedCounts[merged++] = other.counts[j++];
+            } else {
+                mergedKeys[merged] = keys[i];
+                mergedCounts[merged++] = counts[i++] + other.counts[j++];
+            }
+        }
+        keys = mergedKeys;
+        counts = mergedCounts;
+        size = merged;
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param quantile Between 0 and 1, e.g. 0.99 for the 99th percentile.
+     * @return A value within 1% of the value at that rank, or 0 if the sketch is empty.
+     */
+    public long quantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) (quantile * (count - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < size; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return Math.round(2 * Math.pow(GAMMA, keys[i]) / (GAMMA + 1)); // Middle of the bucket, relatively
+            }
+        }
+        return Math.round(2 * Math.pow(GAMMA, keys[size - 1]) / (GAMMA + 1));
+    }
+
+    private void add(int key, long amount) {
+        int position = Arrays.binarySearch(keys, 0, size, key);
+        if (position >= 0) {
+            counts[position] += amount;
+            return;
+        }
+        position = -position - 1;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+        }
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(counts, position, counts, position + 1, size - position);
+        keys[position] = key;
+        counts[position] = amount;
+        size++;
+    }
+}
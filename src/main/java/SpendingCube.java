@@ -0,0 +1,218 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Debit totals per (day, category), pre-aggregated once at load.
+ * For every category the days that have spending are kept sorted together with running
+ * (prefix) sums, so the total for any date range is two binary searches and one subtraction
+ * per category, whatever the number of transactions. New rows can be added at any time; rows
+ * for days after the last known day are appended in O(1). The same pass fills the
+ * {@link SpendingTimeSeries} rollups for the time-series chart and the per-day
+ * {@link SpendingSketches} of merchants and amounts.
+ */
+public class SpendingCube {
+
+    private static final Log.Repeated BAD_AMOUNT = Log.repeated("Could not parse amount"); // Once per debit at worst
+
+    private final Map<String, Integer> categoryIndex = new HashMap<>();
+    private final List<String> categories = new ArrayList<>();
+    private final List<CategorySeries> series = new ArrayList<>();
+    private long[] undatedTotals = new long[16]; // Debits whose date could not be parsed
+    private final SpendingTimeSeries timeSeries = new SpendingTimeSeries(); // Debits of all categories over time
+    private final SpendingSketches sketches = new SpendingSketches(); // Distinct merchants and amount percentiles
+
+    /**
+     * Days with spending for one category and their cumulative totals.
+     */
+    private static class CategorySeries {
+        int[] days = new int[8];         // Sorted ascending, no duplicates
+        long[] cumulative = new long[9]; // cumulative[k] = total of days[0..k)
+        int size;
+
+        void add(int day, long paise) {
+            int position = Arrays.binarySearch(days, 0, size, day);
+            if (position < 0) {
+                position = -position - 1;
+                if (size == days.length) {
+                    days = Arrays.copyOf(days, size * 2);
+                    cumulative = Arrays.copyOf(cumulative, size * 2 + 1);
+                }
+                // Make room for the new day; appending after the last day moves nothing
+                System.arraycopy(days, position, days, position + 1, size - position);
+                System.arraycopy(cumulative, position + 1, cumulative, position + 2, size - position);
+                days[position] = day;
+                cumulative[position + 1] = cumulative[position];
+                size++;
+            }
+            for (int k = position + 1; k <= size; k++) {
+                cumulative[k] += paise;
+            }
+        }
+
+        long total(long startDay, long endDay) {
+            int from = lowerBound(startDay);
+            int to = lowerBound(endDay == Long.MAX_VALUE ? endDay : endDay + 1);
+            return to > from ? cumulative[to] - cumulative[from] : 0;
+        }
+
+        private int lowerBound(long day) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (days[mid] < day) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Builds the cube from all rows of a table.
+     */
+    public static SpendingCube build(TransactionTable table) {
+        SpendingCube cube = new SpendingCube();
+        cube.addRows(table, 0);
+        return cube;
+    }
+
+    /**
+     * Adds the debits in rows {@code fromRow..table.size()}, e.g. after a new statement was appended to the table.
+     */
+    public void addRows(TransactionTable table, int fromRow) {
+        PipelineEvents.Aggregation event = new PipelineEvents.Aggregation();
+        event.start();
+        StringDictionary descriptions = table.getDescriptionDictionary();
+        int[] categoryByDescription = new int[descriptions.size()];
+        Arrays.fill(categoryByDescription, -1);
+        long[] merchantHashByDescription = new long[descriptions.size()];
+
+        for (int row = fromRow; row < table.size(); row++) {
+            if (!table.isDebit(row)) {
+                continue;
+            }
+            int descriptionCode = table.getDescriptionCode(row);
+            if (descriptionCode == StringDictionary.NULL_CODE) {
+                continue;
+            }
+            long amountPaise = table.getAmountMinor(row);
+            if (amountPaise == TransactionTable.NO_AMOUNT) {
+                BAD_AMOUNT.warn("Could not parse amount '%s' for description '%s'. Skipping aggregation.", table.getAmountText(row), table.getDescription(row));
+                continue;
+            }
+            int category = categoryByDescription[descriptionCode];
+            if (category < 0) {
+                // Derive the category once per distinct description
+                String description = descriptions.decode(descriptionCode);
+                category = categoryIndexOf(categoryOf(description));
+                categoryByDescription[descriptionCode] = category;
+                merchantHashByDescription[descriptionCode] = HyperLogLog.hash(MerchantCategorizer.merchantOf(description).toLowerCase(Locale.ROOT));
+            }
+            add(table.getEpochDay(row), category, amountPaise);
+            sketches.add(category, table.getEpochDay(row), merchantHashByDescription[descriptionCode], amountPaise);
+        }
+        PipelineEvents.aggregated(event, Math.max(0, table.size() - fromRow), categories.size());
+    }
+
+    /**
+     * Adds one debit.
+     * @param epochDay The day, or {@link TransactionTable#NO_DATE}.
+     */
+    public void add(int epochDay, String category, long amountPaise) {
+        add(epochDay, categoryIndexOf(category), amountPaise);
+    }
+
+    private void add(int epochDay, int category, long amountPaise) {
+        if (epochDay == TransactionTable.NO_DATE) {
+            undatedTotals[category] += amountPaise;
+        } else {
+            series.get(category).add(epochDay, amountPaise);
+            timeSeries.add(epochDay, amountPaise);
+        }
+    }
+
+    /**
+     * Total debits per category for an inclusive day range; open ends are {@link Long#MIN_VALUE}/{@link Long#MAX_VALUE}.
+     * @return Category -> total in paise, for categories with spending in the range.
+     */
+    public Map<String, Long> totals(long startDay, long endDay) {
+        Map<String, Long> totals = new HashMap<>();
+        for (int category = 0; category < categories.size(); category++) {
+            long total = series.get(category).total(startDay, endDay);
+            if (total != 0) {
+                totals.put(categories.get(category), total);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Total debits per category over everything, including rows whose date could not be parsed.
+     */
+    public Map<String, Long> allTotals() {
+        Map<String, Long> totals = totals(Long.MIN_VALUE, Long.MAX_VALUE);
+        for (int category = 0; category < categories.size(); category++) {
+            if (undatedTotals[category] != 0) {
+                totals.merge(categories.get(category), undatedTotals[category], Long::sum);
+            }
+        }
+        return totals;
+    }
+
+    public int getCategoryCount() {
+        return categories.size();
+    }
+
+    /**
+     * Merges the sketches of some categories for an inclusive day range; open ends are
+     * {@link Long#MIN_VALUE}/{@link Long#MAX_VALUE}. Debits added with {@link #add(int, String, long)}
+     * have no merchant and are not in the sketches.
+     */
+    public SpendingSketches.Stats stats(Collection<String> categoryNames, long startDay, long endDay) {
+        int[] indexes = new int[categoryNames.size()];
+        int count = 0;
+        for (String name : categoryNames) {
+            Integer index = categoryIndex.get(name);
+            if (index != null) {
+                indexes[count++] = index;
+            }
+        }
+        return sketches.stats(Arrays.copyOf(indexes, count), startDay, endDay);
+    }
+
+    /**
+     * @return Day/week/month totals of all dated debits added so far, kept up to date with the cube.
+     */
+    public SpendingTimeSeries getTimeSeries() {
+        return timeSeries;
+    }
+
+    /**
+     * Derives the spending category from a transaction description with the category rules.
+     */
+    static String categoryOf(String description) {
+        return MerchantCategorizer.defaultInstance().categorize(description);
+    }
+
+    private int categoryIndexOf(String category) {
+        Integer index = categoryIndex.get(category);
+        if (index == null) {
+            index = categories.size();
+            categoryIndex.put(category, index);
+            categories.add(category);
+            series.add(new CategorySeries());
+            if (index == undatedTotals.length) {
+                undatedTotals = Arrays.copyOf(undatedTotals, index * 2);
+            }
+        }
+        return index;
+    }
+}
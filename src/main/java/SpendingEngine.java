@@ -0,0 +1,134 @@
+/**
+ * The analytics behind the chart, without any UI: holds the transactions loaded so far with
+ * their {@link SpendingCube} and date range, and summarises spending for a date range. Used by
+ * {@link PieChartApp} on the FX thread and by {@link HeadlessReport}, which never starts JavaFX.
+ * Not thread-safe; rows are added and queried from one thread.
+ */
+public class SpendingEngine {
+
+    public static final int DEFAULT_TOP_CATEGORIES = 15; // Max categories to show directly
+
+    private final TransactionTable transactions; // The full columnar table, grows as statements are added
+    private final SpendingCube cube; // Debit totals per day and category, updated as rows arrive
+    private final TransactionSearchIndex searchIndex; // Description terms, IDs and UTRs, updated as rows arrive
+    private DateIndex dateIndex; // Rows sorted by date, extended on demand after new rows arrived
+    private int dateIndexRows; // Table size the date index covers
+    private int minDay = Integer.MAX_VALUE; // Earliest/latest dates seen so far
+    private int maxDay = Integer.MIN_VALUE;
+
+    /**
+     * Constructor for SpendingEngine, starting with no transactions.
+     */
+    public SpendingEngine() {
+        this(new TransactionTable());
+    }
+
+    /**
+     * Constructor for SpendingEngine.
+     * @param transactions Rows to start with; the engine appends to this table from now on.
+     */
+    public SpendingEngine(TransactionTable transactions) {
+        this.transactions = transactions;
+        this.cube = SpendingCube.build(transactions);
+        this.searchIndex = new TransactionSearchIndex(transactions);
+        this.dateIndex = DateIndex.build(transactions);
+        this.dateIndexRows = transactions.size();
+        trackDateRange(0);
+    }
+
+    /**
+     * Appends the rows of {@code batch} and aggregates them.
+     */
+    public void addAll(TransactionTable batch) {
+        int fromRow = transactions.size();
+        transactions.appendAll(batch);
+        cube.addRows(transactions, fromRow);
+        searchIndex.addRows();
+        trackDateRange(fromRow);
+    }
+
+    /**
+     * Widens the known date range with the dates of rows {@code fromRow..size()}.
+     */
+    private void trackDateRange(int fromRow) {
+        for (int row = fromRow; row < transactions.size(); row++) {
+            int day = transactions.getEpochDay(row);
+            if (day != TransactionTable.NO_DATE) {
+                minDay = Math.min(minDay, day);
+                maxDay = Math.max(maxDay, day);
+            }
+        }
+    }
+
+    /**
+     * @return The date index for all rows loaded so far; rows added since the last call are sorted and merged in.
+     */
+    private DateIndex currentDateIndex() {
+        if (dateIndexRows != transactions.size()) {
+            dateIndex = dateIndex.extend(transactions, dateIndexRows);
+            dateIndexRows = transactions.size();
+        }
+        return dateIndex;
+    }
+
+    /**
+     * Summarises all spending, including transactions whose date could not be parsed.
+     */
+    public SpendingSummary summarizeAll(int topCategories) {
+        return SpendingSummary.of(cube.allTotals(), transactions.size(), Long.MIN_VALUE, Long.MAX_VALUE, topCategories, cube);
+    }
+
+    /**
+     * Summarises spending for an inclusive day range; open ends are {@link Long#MIN_VALUE}/{@link Long#MAX_VALUE}.
+     */
+    public SpendingSummary summarize(long startDay, long endDay, int topCategories) {
+        // Two binary searches give the contiguous slice of rows in range (records with unparseable dates are not indexed)
+        int[] slice = currentDateIndex().range(startDay, endDay);
+        // Totals come from the pre-aggregated cube, O(categories) whatever the number of transactions
+        return SpendingSummary.of(cube.totals(startDay, endDay), slice[1] - slice[0], startDay, endDay, topCategories, cube);
+    }
+
+    /**
+     * @return Spending over time, for {@link SpendingTimeSeries#plot}; grows as rows are added.
+     */
+    public SpendingTimeSeries getTimeSeries() {
+        return cube.getTimeSeries();
+    }
+
+    /**
+     * Finds transactions by exact transaction ID or UTR, or by description words (prefixes, case-insensitive).
+     * @param limit Maximum number of rows to return.
+     */
+    public TransactionSearchIndex.Result search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    public TransactionTable getTransactions() {
+        return transactions;
+    }
+
+    public int size() {
+        return transactions.size();
+    }
+
+    /**
+     * @return Whether any transaction with a parseable date was added.
+     */
+    public boolean hasDates() {
+        return minDay <= maxDay;
+    }
+
+    /**
+     * @return The earliest transaction date (epoch day); only meaningful if {@link #hasDates()}.
+     */
+    public int getMinDay() {
+        return minDay;
+    }
+
+    /**
+     * @return The latest transaction date (epoch day); only meaningful if {@link #hasDates()}.
+     */
+    public int getMaxDay() {
+        return maxDay;
+    }
+}
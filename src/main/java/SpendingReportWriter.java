@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Writes a {@link SpendingSummary} as CSV or JSON, for the headless report. Amounts are plain
+ * decimals in rupees (e.g. {@code 1234.50}) so spreadsheets and scripts can read them back exactly.
+ * Each category also gets its estimated number of distinct merchants and the p50/p90/p99 debit
+ * amounts (within 1%), from the cube's sketches.
+ */
+public class SpendingReportWriter {
+
+    public enum Format {
+        CSV, JSON
+    }
+
+    private final Format format;
+
+    /**
+     * Constructor for SpendingReportWriter.
+     * @param format Output format.
+     */
+    public SpendingReportWriter(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Writes the summary; the writer is flushed but not closed.
+     * @param source Describes where the transactions came from (file, directory or ledger), for the JSON header.
+     */
+    public void write(SpendingSummary summary, String source, Writer out) throws IOException {
+        if (format == Format.CSV) {
+            writeCsv(summary, out);
+        } else {
+            writeJson(summary, source, out);
+        }
+        out.flush();
+    }
+
+    private static void writeCsv(SpendingSummary summary, Writer out) throws IOException {
+        out.write("category,amount,percent,merchants,p50,p90,p99\n");
+        for (SpendingSummary.Slice slice : summary.getSlices()) {
+            out.write(csvField(slice.getName()));
+            out.write(',');
+            out.write(Money.formatPlain(slice.getAmountPaise()));
+            out.write(',');
+            out.write(String.format(Locale.ROOT, "%.2f", slice.getPercentage()));
+            SpendingSketches.Stats stats = slice.getStats();
+            if (stats != null) {
+                out.write("," + stats.getDistinctMerchants()
+                        + "," + Money.formatPlain(stats.getP50Paise())
+                        + "," + Money.formatPlain(stats.getP90Paise())
+                        + "," + Money.formatPlain(stats.getP99Paise()));
+            } else {
+                out.write(",,,,");
+            }
+            out.write('\n');
+        }
+    }
+
+    private static void writeJson(SpendingSummary summary, String source, Writer out) throws IOException {
+        out.write("{\n");
+        out.write("  \"source\": " + jsonString(source) + ",\n");
+        out.write("  \"from\": " + jsonDay(summary.getStartDay(), Long.MIN_VALUE) + ",\n");
+        out.write("  \"to\": " + jsonDay(summary.getEndDay(), Long.MAX_VALUE) + ",\n");
+        out.write("  \"transactions\": " + summary.getTransactionCount() + ",\n");
+        out.write("  \"categories\": " + summary.getCategoryCount() + ",\n");
+        out.write("  \"total\": " + Money.formatPlain(summary.getTotalPaise()) + ",\n");
+        out.write("  \"slices\": [");
+        String separator = "\n";
+        for (SpendingSummary.Slice slice : summary.getSlices()) {
+            out.write(separator);
+            SpendingSketches.Stats stats = slice.getStats();
+            out.write("    {\"category\": " + jsonString(slice.getName())
+                    + ", \"amount\": " + Money.formatPlain(slice.getAmountPaise())
+                    + ", \"percent\": " + String.format(Locale.ROOT, "%.2f", slice.getPercentage())
+                    + ", \"other\": " + slice.isOther()
+                    + (stats == null ? "" : ", \"merchants\": " + stats.getDistinctMerchants()
+                            + ", \"p50\": " + Money.formatPlain(stats.getP50Paise())
+                            + ", \"p90\": " + Money.formatPlain(stats.getP90Paise())
+                            + ", \"p99\": " + Money.formatPlain(stats.getP99Paise()))
+                    + "}");
+            separator = ",\n";
+        }
+        out.write(summary.getSlices().isEmpty() ? "]\n" : "\n  ]\n");
+        out.write("}\n");
+    }
+
+    private static String jsonDay(long day, long open) {
+        return day == open ? "null" : "\"" + LocalDate.ofEpochDay(day) + "\"";
+    }
+
+    /**
+     * Quotes a field if it contains a comma, quote or line break (RFC 4180).
+     */
+    static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    static String jsonString(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
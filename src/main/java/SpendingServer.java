@@ -0,0 +1,311 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP endpoint for dashboards that query the same statements at the same time. Every
+ * request reads the current {@link SpendingSnapshot}, which is immutable, so requests never wait
+ * for each other; new data is swapped in with {@link #publish(SpendingSnapshot)}. Requests run
+ * on a virtual thread each when the JVM has them (JDK 21+), otherwise on a fixed pool of
+ * {@code -Dtracker.serverThreads} threads (default 200). Listens on the loopback address only.
+ *
+ * Endpoints (GET, JSON, dates as yyyy-mm-dd, both ends inclusive and optional):
+ * <ul>
+ *     <li>{@code /api/summary?from=&to=&top=} - top categories in the range, the rest as "Other" (top defaults to 15)</li>
+ *     <li>{@code /api/categories?from=&to=} - totals of every category in the range</li>
+ *     <li>{@code /api/info} - source, transaction count and date range of the snapshot</li>
+ * </ul>
+ *
+ * Usage: {@code SpendingServer (<dir|glob|pdf> | --ledger <file>) [--port <n>] [--password <pw> | --passwords <file>] [--threads <n>]},
+ * or {@code App --serve ...}.
+ */
+public class SpendingServer {
+
+    private static final String USAGE = "Usage: --serve (<dir|glob|pdf> | --ledger <file>) [--port <n>]"
+            + " [--password <pw> | --passwords <file>] [--threads <n>]";
+    private static final int DEFAULT_PORT = 8080;
+    private static final int BACKLOG = 4096; // Connections the OS queues while all handlers are busy
+    private static final int FALLBACK_THREADS = Integer.getInteger("tracker.serverThreads", 200);
+
+    private static final Metrics.Histogram REQUEST_TIME = Metrics.histogram("server.request");
+    private static final Metrics.Counter ERRORS = Metrics.counter("server.errors");
+    private static final Log.Repeated REQUEST_ERRORS = Log.repeated("Could not handle request"); // Once per request at worst
+
+    static {
+        // The JDK server writes the headers and the body separately; without TCP_NODELAY every keep-alive
+        // response waits for the client's delayed ACK (about 40 ms). Read once, when the first server starts.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile SpendingSnapshot snapshot;
+
+    /**
+     * Constructor for SpendingServer. The server does not accept requests before {@link #start()}.
+     * @param port Port on the loopback address, or 0 for any free port.
+     */
+    public SpendingServer(int port, SpendingSnapshot snapshot) throws IOException {
+        this.snapshot = snapshot;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/summary", exchange -> handle(exchange, this::summary));
+        server.createContext("/api/categories", exchange -> handle(exchange, this::categories));
+        server.createContext("/api/info", exchange -> handle(exchange, this::info));
+        server.createContext("/", exchange -> handle(exchange, query -> {
+            throw new NotFoundException(exchange.getRequestURI().getPath());
+        }));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits up to {@code delaySeconds} for running ones and shuts down the executor.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Makes later requests see {@code snapshot}; requests already running finish on the old one.
+     */
+    public void publish(SpendingSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public SpendingSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Uses a virtual thread per request if {@code Executors.newVirtualThreadPerTaskExecutor} exists.
+     * Looked up reflectively so the class still compiles and runs on JDK 17.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            Log.info("Serving requests on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            Log.info("Virtual threads not available, serving requests on %d threads", FALLBACK_THREADS);
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(FALLBACK_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "spending-server-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // --- Requests ---
+
+    private interface Handler {
+        String respond(Map<String, String> query);
+    }
+
+    /**
+     * Thrown for paths that have no endpoint.
+     */
+    private static final class NotFoundException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        NotFoundException(String path) {
+            super("No such endpoint: " + path);
+        }
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        long start = System.nanoTime();
+        int status = 200;
+        String body;
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                status = 405;
+                body = error("Only GET is supported");
+            } else {
+                body = handler.respond(parseQuery(exchange.getRequestURI().getRawQuery()));
+            }
+        } catch (NotFoundException e) {
+            status = 404;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error("Internal error");
+            REQUEST_ERRORS.error("Could not handle %s: %s", exchange.getRequestURI(), e);
+        }
+        if (status != 200) {
+            ERRORS.increment();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        REQUEST_TIME.recordSince(start);
+    }
+
+    private String summary(Map<String, String> query) {
+        return report(query, intParameter(query, "top", SpendingEngine.DEFAULT_TOP_CATEGORIES));
+    }
+
+    private String categories(Map<String, String> query) {
+        return report(query, 0);
+    }
+
+    private String report(Map<String, String> query, int topCategories) {
+        SpendingSnapshot current = snapshot; // One snapshot for the whole request
+        long startDay = dayParameter(query, "from", Long.MIN_VALUE);
+        long endDay = dayParameter(query, "to", Long.MAX_VALUE);
+        if (startDay > endDay) {
+            throw new IllegalArgumentException("'from' is after 'to'");
+        }
+        StringWriter out = new StringWriter();
+        try {
+            new SpendingReportWriter(SpendingReportWriter.Format.JSON)
+                    .write(current.summarize(startDay, endDay, topCategories), current.getSource(), out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringWriter does not throw
+        }
+        return out.toString();
+    }
+
+    private String info(Map<String, String> query) {
+        SpendingSnapshot current = snapshot;
+        return "{\n"
+                + "  \"source\": " + SpendingReportWriter.jsonString(current.getSource()) + ",\n"
+                + "  \"transactions\": " + current.getTransactionCount() + ",\n"
+                + "  \"categories\": " + current.getCategoryCount() + ",\n"
+                + "  \"firstDate\": " + (current.hasDates() ? "\"" + LocalDate.ofEpochDay(current.getMinDay()) + "\"" : "null") + ",\n"
+                + "  \"lastDate\": " + (current.hasDates() ? "\"" + LocalDate.ofEpochDay(current.getMaxDay()) + "\"" : "null") + ",\n"
+                + "  \"createdMillis\": " + current.getCreatedMillis() + "\n"
+                + "}\n";
+    }
+
+    private static String error(String message) {
+        return "{\"error\": " + SpendingReportWriter.jsonString(message) + "}\n";
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            query.put(name, value);
+        }
+        return query;
+    }
+
+    private static long dayParameter(Map<String, String> query, String name, long absent) {
+        String value = query.get(name);
+        return value == null || value.isEmpty() ? absent : LocalDate.parse(value).toEpochDay();
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int absent) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) {
+            return absent;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + name + "' is not a number: " + value);
+        }
+    }
+
+    // --- Command line ---
+
+    public static void main(String[] args) {
+        String input = null;
+        Path ledgerFile = null;
+        int port = DEFAULT_PORT;
+        PasswordSource passwords = PasswordSource.fixed(null);
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--ledger":
+                        ledgerFile = Paths.get(args[++i]);
+                        break;
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--password":
+                        passwords = PasswordSource.fixed(args[++i]);
+                        break;
+                    case "--passwords":
+                        passwords = PasswordSource.fromProperties(Paths.get(args[++i]));
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        }
+                        input = args[i];
+                }
+            }
+            if ((input == null) == (ledgerFile == null)) {
+                throw new IllegalArgumentException("Give either statements or --ledger");
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | IOException e) {
+            Log.error("%s", e.getMessage());
+            Log.flush();
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        try {
+            SpendingEngine engine = new SpendingEngine();
+            HeadlessReport.loadInto(engine, input, ledgerFile, passwords, threads);
+            SpendingSnapshot snapshot = SpendingSnapshot.of(ledgerFile != null ? ledgerFile.toString() : input, engine.getTransactions());
+            SpendingServer server = new SpendingServer(port, snapshot);
+            server.start();
+            Log.info("Serving %d transactions on http://localhost:%d/api/summary", snapshot.getTransactionCount(), server.getPort());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(1);
+                Metrics.printSummary(System.err);
+            }));
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+            Log.flush();
+            System.exit(1);
+        }
+        // The server's dispatcher thread keeps the JVM running until it is stopped
+    }
+}
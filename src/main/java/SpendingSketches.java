@@ -0,0 +1,199 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distinct merchants and amount percentiles per category, without keeping the amounts: every
+ * debit goes into a {@link HyperLogLog} of merchant hashes and a {@link QuantileSketch} of amounts
+ * for its category and day, and also for its month and year. A date range is answered by merging
+ * the years, months and days that exactly cover it (at most about 30 days and 11 months at each
+ * end), so even ten years merge a few dozen sketches per category instead of rescanning rows.
+ */
+public class SpendingSketches {
+
+    private static final int DAY = 0;
+    private static final int MONTH = 1;
+    private static final int YEAR = 2;
+
+    /**
+     * Merchants and amounts of one category over one period.
+     */
+    private static final class Sketch {
+        final HyperLogLog merchants = new HyperLogLog();
+        final QuantileSketch amounts = new QuantileSketch();
+
+        void add(long merchantHash, int amountKey) {
+            merchants.add(merchantHash);
+            amounts.addKey(amountKey);
+        }
+
+        void merge(Sketch other) {
+            merchants.merge(other.merchants);
+            amounts.merge(other.amounts);
+        }
+    }
+
+    /**
+     * Distinct merchant count and amount percentiles for some categories and dates.
+     */
+    public static final class Stats {
+        private final long debitCount;
+        private final long distinctMerchants;
+        private final long p50Paise;
+        private final long p90Paise;
+        private final long p99Paise;
+
+        Stats(Sketch sketch) {
+            this.debitCount = sketch.amounts.getCount();
+            this.distinctMerchants = sketch.merchants.estimate();
+            this.p50Paise = sketch.amounts.quantile(0.50);
+            this.p90Paise = sketch.amounts.quantile(0.90);
+            this.p99Paise = sketch.amounts.quantile(0.99);
+        }
+
+        public long getDebitCount() {
+            return debitCount;
+        }
+
+        /**
+         * @return Estimated number of distinct merchants, within a few percent.
+         */
+        public long getDistinctMerchants() {
+            return distinctMerchants;
+        }
+
+        /**
+         * @return Median debit, within 1%.
+         */
+        public long getP50Paise() {
+            return p50Paise;
+        }
+
+        public long getP90Paise() {
+            return p90Paise;
+        }
+
+        public long getP99Paise() {
+            return p99Paise;
+        }
+    }
+
+    /**
+     * Sketches of one category per day, month and year, and of its undated debits.
+     */
+    private static final class CategorySketches {
+        final List<Map<Integer, Sketch>> levels = List.of(new HashMap<>(), new HashMap<>(), new HashMap<>()); // By DAY, MONTH, YEAR
+        Sketch undated;
+        int firstDay = Integer.MAX_VALUE; // Dates with sketches
+        int lastDay = Integer.MIN_VALUE;
+        int cachedDay = TransactionTable.NO_DATE; // The day, month and year sketches of the last day added
+        Sketch[] cached;
+    }
+
+    private final List<CategorySketches> categories = new ArrayList<>(); // By category index of the cube
+    private int lastDay = TransactionTable.NO_DATE; // Rows mostly come in date order, so the month and
+    private int lastMonth;                          // year of the previous row are usually the ones needed
+    private int lastYear;
+
+    /**
+     * Adds one debit.
+     * @param category The category's index.
+     * @param epochDay The day, or {@link TransactionTable#NO_DATE}.
+     * @param merchantHash {@link HyperLogLog#hash(String)} of the merchant.
+     */
+    public void add(int category, int epochDay, long merchantHash, long amountPaise) {
+        while (categories.size() <= category) {
+            categories.add(new CategorySketches());
+        }
+        CategorySketches sketches = categories.get(category);
+        if (epochDay == TransactionTable.NO_DATE) {
+            if (sketches.undated == null) {
+                sketches.undated = new Sketch();
+            }
+            sketches.undated.add(merchantHash, QuantileSketch.keyOf(amountPaise));
+            return;
+        }
+        if (epochDay != lastDay) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            lastDay = epochDay;
+            lastMonth = date.getYear() * 12 + date.getMonthValue() - 1;
+            lastYear = date.getYear();
+        }
+        if (epochDay != sketches.cachedDay) {
+            sketches.firstDay = Math.min(sketches.firstDay, epochDay);
+            sketches.lastDay = Math.max(sketches.lastDay, epochDay);
+            sketches.cachedDay = epochDay;
+            sketches.cached = new Sketch[]{
+                    sketches.levels.get(DAY).computeIfAbsent(epochDay, key -> new Sketch()),
+                    sketches.levels.get(MONTH).computeIfAbsent(lastMonth, key -> new Sketch()),
+                    sketches.levels.get(YEAR).computeIfAbsent(lastYear, key -> new Sketch())};
+        }
+        int amountKey = QuantileSketch.keyOf(amountPaise);
+        for (Sketch sketch : sketches.cached) {
+            sketch.add(merchantHash, amountKey);
+        }
+    }
+
+    /**
+     * Merges the sketches of some categories for an inclusive day range; open ends are
+     * {@link Long#MIN_VALUE}/{@link Long#MAX_VALUE}. A fully open range includes undated debits.
+     * @param categoryIndexes The categories' indexes.
+     */
+    public Stats stats(int[] categoryIndexes, long startDay, long endDay) {
+        Sketch result = new Sketch();
+        boolean all = startDay == Long.MIN_VALUE && endDay == Long.MAX_VALUE;
+        for (int category : categoryIndexes) {
+            if (category >= categories.size()) {
+                continue;
+            }
+            CategorySketches sketches = categories.get(category);
+            if (all) {
+                // Whole years hold every dated debit
+                for (Sketch year : sketches.levels.get(YEAR).values()) {
+                    result.merge(year);
+                }
+                if (sketches.undated != null) {
+                    result.merge(sketches.undated);
+                }
+            } else {
+                mergeRange(sketches, startDay, endDay, result);
+            }
+        }
+        return new Stats(result);
+    }
+
+    /**
+     * Merges the fewest day, month and year sketches that cover the range exactly.
+     */
+    private static void mergeRange(CategorySketches sketches, long startDay, long endDay, Sketch result) {
+        if (startDay > sketches.lastDay || endDay < sketches.firstDay) {
+            return;
+        }
+        // Only the years with sketches matter; whole years keep the open ends aligned to years
+        LocalDate firstYear = LocalDate.ofEpochDay(sketches.firstDay).withDayOfYear(1);
+        LocalDate lastYear = LocalDate.ofEpochDay(sketches.lastDay).plusYears(1).withDayOfYear(1).minusDays(1);
+        LocalDate date = LocalDate.ofEpochDay(Math.max(startDay, firstYear.toEpochDay()));
+        LocalDate end = LocalDate.ofEpochDay(Math.min(endDay, lastYear.toEpochDay()));
+        Map<Integer, Sketch> days = sketches.levels.get(DAY);
+        while (!date.isAfter(end)) {
+            LocalDate next;
+            Sketch sketch;
+            if (date.getDayOfYear() == 1 && !date.plusYears(1).minusDays(1).isAfter(end)) {
+                sketch = sketches.levels.get(YEAR).get(date.getYear());
+                next = date.plusYears(1);
+            } else if (date.getDayOfMonth() == 1 && !date.plusMonths(1).minusDays(1).isAfter(end)) {
+                sketch = sketches.levels.get(MONTH).get(date.getYear() * 12 + date.getMonthValue() - 1);
+                next = date.plusMonths(1);
+            } else {
+                sketch = days.get((int) date.toEpochDay());
+                next = date.plusDays(1);
+            }
+            if (sketch != null) {
+                result.merge(sketch);
+            }
+            date = next;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Spending data frozen at one point in time, for many concurrent readers. The cube and date index
+ * are built once and never modified afterwards, and the transactions themselves are not kept, so
+ * queries take no locks and share nothing mutable. Newer data is published as a new snapshot.
+ */
+public final class SpendingSnapshot {
+
+    private final String source;
+    private final int transactionCount;
+    private final SpendingCube cube;
+    private final DateIndex dateIndex;
+    private final long createdMillis;
+
+    private SpendingSnapshot(String source, int transactionCount, SpendingCube cube, DateIndex dateIndex) {
+        this.source = source;
+        this.transactionCount = transactionCount;
+        this.cube = cube;
+        this.dateIndex = dateIndex;
+        this.createdMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Aggregates the table into a new snapshot; the table may change afterwards without affecting it.
+     * @param source Describes where the transactions came from.
+     */
+    public static SpendingSnapshot of(String source, TransactionTable transactions) {
+        return new SpendingSnapshot(source, transactions.size(), SpendingCube.build(transactions), DateIndex.build(transactions));
+    }
+
+    /**
+     * Summarises all spending, including transactions whose date could not be parsed.
+     */
+    public SpendingSummary summarizeAll(int topCategories) {
+        return SpendingSummary.of(cube.allTotals(), transactionCount, Long.MIN_VALUE, Long.MAX_VALUE, topCategories, cube);
+    }
+
+    /**
+     * Summarises spending for an inclusive day range; open ends are {@link Long#MIN_VALUE}/{@link Long#MAX_VALUE}.
+     */
+    public SpendingSummary summarize(long startDay, long endDay, int topCategories) {
+        if (startDay == Long.MIN_VALUE && endDay == Long.MAX_VALUE) {
+            return summarizeAll(topCategories);
+        }
+        int[] slice = dateIndex.range(startDay, endDay);
+        return SpendingSummary.of(cube.totals(startDay, endDay), slice[1] - slice[0], startDay, endDay, topCategories, cube);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+
+    public int getCategoryCount() {
+        return cube.getCategoryCount();
+    }
+
+    /**
+     * @return Whether any transaction has a parseable date.
+     */
+    public boolean hasDates() {
+        return !dateIndex.isEmpty();
+    }
+
+    /**
+     * @return The earliest transaction date (epoch day); only meaningful if {@link #hasDates()}.
+     */
+    public int getMinDay() {
+        return dateIndex.getMinDay();
+    }
+
+    /**
+     * @return The latest transaction date (epoch day); only meaningful if {@link #hasDates()}.
+     */
+    public int getMaxDay() {
+        return dateIndex.getMaxDay();
+    }
+
+    /**
+     * @return When the snapshot was built, in epoch milliseconds.
+     */
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+}
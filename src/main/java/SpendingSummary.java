@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Spending per category for one date range, reduced to the largest categories with everything
+ * else folded into a single "Other" slice. This is what the chart draws and what the headless
+ * report writes, so both show the same numbers.
+ */
+public class SpendingSummary {
+
+    public static final String OTHER_KEY = "\u0000Other"; // Key of the "Other" slice, cannot clash with a category
+    public static final String OTHER_NAME = "Other";
+
+    private final long startDay;
+    private final long endDay;
+    private final int transactionCount;
+    private final int categoryCount;
+    private final long totalPaise;
+    private final List<Slice> slices;
+
+    /**
+     * One category (or "Other") and its share of the total.
+     */
+    public static class Slice {
+        private final String key;
+        private final String name;
+        private final long amountPaise;
+        private final double percentage;
+        private final SpendingSketches.Stats stats;
+
+        Slice(String key, String name, long amountPaise, long totalPaise, SpendingSketches.Stats stats) {
+            this.key = key;
+            this.name = name;
+            this.amountPaise = amountPaise;
+            this.percentage = (totalPaise > 0) ? (amountPaise * 100.0 / totalPaise) : 0.0;
+            this.stats = stats;
+        }
+
+        /**
+         * @return The category, or {@link #OTHER_KEY}; stable across refreshes.
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getAmountPaise() {
+            return amountPaise;
+        }
+
+        public double getPercentage() {
+            return percentage;
+        }
+
+        public boolean isOther() {
+            return OTHER_KEY.equals(key);
+        }
+
+        /**
+         * @return Distinct merchants and amount percentiles of the slice's debits, or null if not computed.
+         */
+        public SpendingSketches.Stats getStats() {
+            return stats;
+        }
+    }
+
+    private SpendingSummary(long startDay, long endDay, int transactionCount, int categoryCount, long totalPaise, List<Slice> slices) {
+        this.startDay = startDay;
+        this.endDay = endDay;
+        this.transactionCount = transactionCount;
+        this.categoryCount = categoryCount;
+        this.totalPaise = totalPaise;
+        this.slices = Collections.unmodifiableList(slices);
+    }
+
+    /**
+     * Picks the largest categories in one pass with a min-heap of {@code topCategories} entries.
+     * @param spendingByCategory Category -> total debits in paise.
+     * @param transactionCount Number of transactions the totals cover.
+     * @param topCategories Categories to show on their own, or 0 for all of them (no "Other").
+     */
+    public static SpendingSummary of(Map<String, Long> spendingByCategory, int transactionCount,
+                                     long startDay, long endDay, int topCategories) {
+        return of(spendingByCategory, transactionCount, startDay, endDay, topCategories, null);
+    }
+
+    /**
+     * Like {@link #of(Map, int, long, long, int)}, with the merchant count and amount percentiles of
+     * every slice merged from the cube's sketches for the same range.
+     * @param sketches The cube the totals came from, or null for slices without stats.
+     */
+    public static SpendingSummary of(Map<String, Long> spendingByCategory, int transactionCount,
+                                     long startDay, long endDay, int topCategories, SpendingCube sketches) {
+        int limit = topCategories > 0 ? topCategories : Integer.MAX_VALUE;
+        PriorityQueue<Map.Entry<String, Long>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+        long totalValue = 0;
+        for (Map.Entry<String, Long> entry : spendingByCategory.entrySet()) {
+            totalValue += entry.getValue();
+            if (top.size() < limit) {
+                top.add(entry);
+            } else if (entry.getValue() > top.peek().getValue()) {
+                top.poll();
+                top.add(entry);
+            }
+        }
+        List<Map.Entry<String, Long>> largest = new ArrayList<>(top);
+        largest.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+
+        List<Slice> slices = new ArrayList<>(largest.size() + 1);
+        long shownAmount = 0;
+        Set<String> shown = new HashSet<>();
+        for (Map.Entry<String, Long> entry : largest) {
+            SpendingSketches.Stats stats = sketches == null ? null
+                    : sketches.stats(Collections.singleton(entry.getKey()), startDay, endDay);
+            slices.add(new Slice(entry.getKey(), entry.getKey(), entry.getValue(), totalValue, stats));
+            shownAmount += entry.getValue();
+            shown.add(entry.getKey());
+        }
+        // Handle remaining categories ("Other")
+        long otherAmount = totalValue - shownAmount;
+        if (spendingByCategory.size() > limit && otherAmount > 0) {
+            SpendingSketches.Stats stats = null;
+            if (sketches != null) {
+                // Sketches merge, so "Other" gets stats over all the categories folded into it
+                List<String> others = new ArrayList<>(spendingByCategory.size() - shown.size());
+                for (String category : spendingByCategory.keySet()) {
+                    if (!shown.contains(category)) {
+                        others.add(category);
+                    }
+                }
+                stats = sketches.stats(others, startDay, endDay);
+            }
+            slices.add(new Slice(OTHER_KEY, OTHER_NAME, otherAmount, totalValue, stats));
+        }
+        return new SpendingSummary(startDay, endDay, transactionCount, spendingByCategory.size(), totalValue, slices);
+    }
+
+    /**
+     * @return First day of the range (epoch day), or {@link Long#MIN_VALUE} if open.
+     */
+    public long getStartDay() {
+        return startDay;
+    }
+
+    /**
+     * @return Last day of the range (epoch day, inclusive), or {@link Long#MAX_VALUE} if open.
+     */
+    public long getEndDay() {
+        return endDay;
+    }
+
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * @return Number of categories with spending in the range, including those folded into "Other".
+     */
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    public long getTotalPaise() {
+        return totalPaise;
+    }
+
+    /**
+     * @return The slices, largest first with "Other" (if any) last.
+     */
+    public List<Slice> getSlices() {
+        return slices;
+    }
+}
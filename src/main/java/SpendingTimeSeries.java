@@ -0,0 +1,198 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Debit totals over time, rolled up per day, ISO week (Monday to Sunday) and calendar month as the
+ * rows are aggregated, so drawing any range never touches the transactions. {@link #plot} picks the
+ * finest rollup that is not much denser than the points wanted and thins it further with
+ * {@link Lttb}, so a chart never gets more points than it has pixels, whatever the length of the
+ * history. Rollups are dense arrays from the earliest to the latest bucket seen; ten years of days
+ * are about 30 KB.
+ */
+public class SpendingTimeSeries {
+
+    private static final int OVERSAMPLING = 4; // A rollup may have this many buckets per wanted point before a coarser one is used
+
+    /**
+     * Bucket size of a rollup.
+     */
+    public enum Resolution {
+        DAY, WEEK, MONTH;
+
+        /**
+         * @return The bucket holding an epoch day, numbered consecutively.
+         */
+        int bucketOf(int epochDay) {
+            switch (this) {
+                case DAY:
+                    return epochDay;
+                case WEEK:
+                    return Math.floorDiv(epochDay + 3, 7); // 1970-01-01 was a Thursday
+                default:
+                    LocalDate date = LocalDate.ofEpochDay(epochDay);
+                    return date.getYear() * 12 + date.getMonthValue() - 1;
+            }
+        }
+
+        /**
+         * @return The first epoch day of a bucket.
+         */
+        int startDayOf(int bucket) {
+            switch (this) {
+                case DAY:
+                    return bucket;
+                case WEEK:
+                    return bucket * 7 - 3;
+                default:
+                    return (int) LocalDate.of(Math.floorDiv(bucket, 12), Math.floorMod(bucket, 12) + 1, 1).toEpochDay();
+            }
+        }
+    }
+
+    /**
+     * Points to draw: the first day of each bucket and its total, in date order.
+     */
+    public static final class Plot {
+        private final Resolution resolution;
+        private final int[] days;
+        private final long[] totalsPaise;
+
+        Plot(Resolution resolution, int[] days, long[] totalsPaise) {
+            this.resolution = resolution;
+            this.days = days;
+            this.totalsPaise = totalsPaise;
+        }
+
+        public Resolution getResolution() {
+            return resolution;
+        }
+
+        public int size() {
+            return days.length;
+        }
+
+        /**
+         * @return The first epoch day of the bucket of point {@code i}.
+         */
+        public int getDay(int i) {
+            return days[i];
+        }
+
+        public long getTotalPaise(int i) {
+            return totalsPaise[i];
+        }
+    }
+
+    /**
+     * Totals of consecutive buckets, from {@code first} to {@code first + size - 1}.
+     */
+    private static final class Rollup {
+        int first;
+        int size;
+        long[] totals = new long[16];
+
+        void add(int bucket, long paise) {
+            if (size == 0) {
+                first = bucket;
+                size = 1;
+            } else if (bucket < first) {
+                // An older statement: make room at the front
+                int shift = first - bucket;
+                ensureCapacity(size + shift);
+                System.arraycopy(totals, 0, totals, shift, size);
+                Arrays.fill(totals, 0, shift, 0);
+                first = bucket;
+                size += shift;
+            } else if (bucket >= first + size) {
+                ensureCapacity(bucket - first + 1);
+                size = bucket - first + 1;
+            }
+            totals[bucket - first] += paise;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > totals.length) {
+                totals = Arrays.copyOf(totals, Math.max(capacity, totals.length * 2));
+            }
+        }
+
+        long get(int bucket) {
+            return bucket < first || bucket >= first + size ? 0 : totals[bucket - first];
+        }
+    }
+
+    private final Rollup[] rollups = {new Rollup(), new Rollup(), new Rollup()}; // By Resolution ordinal
+    private int lastDay = TransactionTable.NO_DATE; // Rows mostly come in date order, so the month of
+    private int lastMonth;                          // the previous row is usually the one needed
+
+    /**
+     * Adds one debit to the day, week and month it falls in.
+     */
+    public void add(int epochDay, long amountPaise) {
+        rollups[Resolution.DAY.ordinal()].add(epochDay, amountPaise);
+        rollups[Resolution.WEEK.ordinal()].add(Resolution.WEEK.bucketOf(epochDay), amountPaise);
+        if (epochDay != lastDay) {
+            lastMonth = Resolution.MONTH.bucketOf(epochDay);
+            lastDay = epochDay;
+        }
+        rollups[Resolution.MONTH.ordinal()].add(lastMonth, amountPaise);
+    }
+
+    /**
+     * @return Whether any dated debit was added.
+     */
+    public boolean isEmpty() {
+        return rollups[Resolution.DAY.ordinal()].size == 0;
+    }
+
+    /**
+     * Total of one bucket.
+     * @param epochDay Any day in the bucket.
+     */
+    public long getTotalPaise(Resolution resolution, int epochDay) {
+        return rollups[resolution.ordinal()].get(resolution.bucketOf(epochDay));
+    }
+
+    /**
+     * Points for an inclusive day range; open ends are {@link Long#MIN_VALUE}/{@link Long#MAX_VALUE}.
+     * Uses the finest rollup with at most {@code 4 * maxPoints} buckets in the range (or months),
+     * downsampled to {@code maxPoints} with LTTB. Buckets without spending are included as 0.
+     */
+    public Plot plot(long startDay, long endDay, int maxPoints) {
+        Rollup days = rollups[Resolution.DAY.ordinal()];
+        int from = (int) Math.max(startDay, days.first);
+        int to = (int) Math.min(endDay, (long) days.first + days.size - 1);
+        if (days.size == 0 || from > to) {
+            return new Plot(Resolution.DAY, new int[0], new long[0]);
+        }
+        Resolution resolution = Resolution.MONTH;
+        for (Resolution candidate : Resolution.values()) {
+            if (candidate.bucketOf(to) - candidate.bucketOf(from) + 1 <= (long) OVERSAMPLING * maxPoints) {
+                resolution = candidate;
+                break;
+            }
+        }
+
+        Rollup rollup = rollups[resolution.ordinal()];
+        int firstBucket = resolution.bucketOf(from);
+        int count = resolution.bucketOf(to) - firstBucket + 1;
+        int[] bucketDays = new int[count];
+        long[] totals = new long[count];
+        for (int i = 0; i < count; i++) {
+            bucketDays[i] = resolution.startDayOf(firstBucket + i);
+            totals[i] = rollup.get(firstBucket + i);
+        }
+
+        int[] kept = Lttb.downsample(bucketDays, totals, count, maxPoints);
+        if (kept.length == count) {
+            return new Plot(resolution, bucketDays, totals);
+        }
+        int[] keptDays = new int[kept.length];
+        long[] keptTotals = new long[kept.length];
+        for (int i = 0; i < kept.length; i++) {
+            keptDays[i] = bucketDays[kept[i]];
+            keptTotals[i] = totals[kept[i]];
+        }
+        return new Plot(resolution, keptDays, keptTotals);
+    }
+}
@@ -0,0 +1,139 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * On-disk cache of parsed statements, so re-running on an unchanged PDF skips PDFBox entirely.
+ * Each entry is a compact binary file named after the SHA-256 of the PDF's bytes and the extractor
+ * that parsed it ({@code -Dtracker.extractor}), and holds the owner, date range, columns and the
+ * {@link TransactionTable} columns as stored in memory.
+ * Entries are memory-mapped when read. A format version mismatch or a damaged file counts as a
+ * miss and the statement is parsed again.
+ */
+public class StatementCache {
+
+    private static final int MAGIC = 0x50505443; // "PPTC"
+    private static final int FORMAT_VERSION = 1; // Bump whenever the layout or the parser output changes
+    private static final String SUFFIX = ".stmt";
+    // Tables from the text and the layout parser are cached apart, so switching extractors does not reuse the other's rows
+    private static final String EXTRACTOR = LayoutStatementReader.ENABLED ? "layout" : "text";
+
+    private final Path directory;
+
+    /**
+     * Constructor for StatementCache.
+     * @param directory Where cache entries are kept; created on first store.
+     */
+    public StatementCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The cache under {@code -Dtracker.cacheDir}, or {@code ~/.phonepe-tracker/cache} by default.
+     */
+    public static StatementCache defaultCache() {
+        String configured = System.getProperty("tracker.cacheDir");
+        Path directory = configured != null
+                ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".phonepe-tracker", "cache");
+        return new StatementCache(directory);
+    }
+
+    /**
+     * @return Hex SHA-256 of the file's contents.
+     */
+    public static String contentHash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @return The cached statement for this content hash, or null on a miss (including one only parsed by the other extractor).
+     */
+    public StatementMetadata load(String contentHash) {
+        StatementMetadata metadata = read(entryPath(contentHash));
+        Metrics.counter(metadata != null ? "cache.hits" : "cache.misses").increment();
+        return metadata;
+    }
+
+    private static StatementMetadata read(Path entry) {
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+                return null; // Written by another version, parse again
+            }
+            String ownerName = BinaryFormat.readString(in);
+            String dateRange = BinaryFormat.readString(in);
+            String[] columns = new String[in.getInt()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = BinaryFormat.readString(in);
+            }
+            StatementMetadata metadata = new StatementMetadata(ownerName, dateRange, columns);
+            metadata.setTransactionTable(TransactionTable.readFrom(in));
+            return metadata;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            Log.warn("Ignoring unreadable cache entry %s: %s", entry, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a parsed statement under its content hash. The entry is written to a temporary file
+     * first and then moved into place, so readers never see a half-written entry.
+     */
+    public void store(String contentHash, StatementMetadata metadata) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, contentHash, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                BinaryFormat.writeString(out, metadata.getOwnerName());
+                BinaryFormat.writeString(out, metadata.getDateRange());
+                String[] columns = metadata.getColumns() != null ? metadata.getColumns() : new String[0];
+                out.writeInt(columns.length);
+                for (String column : columns) {
+                    BinaryFormat.writeString(out, column);
+                }
+                metadata.getTransactionTable().writeTo(out);
+            }
+            Files.move(temp, entryPath(contentHash), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path entryPath(String contentHash) {
+        return directory.resolve(contentHash + "-" + EXTRACTOR + SUFFIX);
+    }
+}
@@ -0,0 +1,351 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds transaction records from positioned words, one page at a time, instead of from flattened
+ * text. Words are grouped into lines by baseline and assigned to the Date / Transaction Details /
+ * Type / Amount columns by their x-coordinate, measured against the column header row. A record
+ * starts at every line whose Date cell starts with a month name; the lines after it, up to the
+ * next record, add the time, description, IDs, account and amount cells to it. So wrapped
+ * dates, descriptions and amounts need no look-ahead, and a record split by a page break simply
+ * continues on the next page.
+ *
+ * Page headers (everything above the column header row) and footers (the "Page N of M" or notice
+ * line and everything below it) are dropped by their position on the page. Only the current
+ * page's words are held in memory.
+ */
+public class StatementLayoutParser {
+
+    private static final int DATE = 0;
+    private static final int DETAILS = 1;
+    private static final int TYPE = 2;
+    private static final int AMOUNT = 3;
+    private static final String[] COLUMN_HEADER_WORDS = {"Date", "Transaction", "Details", "Type", "Amount"};
+    private static final int[] COLUMN_OF_HEADER_WORD = {DATE, DETAILS, -1, TYPE, AMOUNT};
+    private static final float COLUMN_TOLERANCE = 3f; // Points a word may start left of its column's header
+
+    private static final String SYSTEM_GENERATED = "This is a system generated statement";
+    private static final String END_OF_STATEMENT = "This is an automatically generated statement";
+    private static final String TRANSACTION_ID_PREFIX = "Transaction ID";
+    private static final String UTR_PREFIX = "UTR No";
+    private static final String WALLET_UTR = "Wallets txn has no UTR";
+    private static final Log.Repeated STRAY_TEXT = Log.repeated("Skipping text outside a transaction");
+    private static final Log.Repeated BAD_AMOUNT = Log.repeated("Could not parse amount line");
+    private static final Log.Repeated BAD_RECORD = Log.repeated("Error parsing transaction");
+
+    /**
+     * One run of glyphs without a space, with the position of its first glyph.
+     */
+    static final class Word {
+        final float x;
+        final float y; // Baseline, from the top of the page
+        final float height;
+        final String text;
+
+        Word(float x, float y, float height, String text) {
+            this.x = x;
+            this.y = y;
+            this.height = height;
+            this.text = text;
+        }
+    }
+
+    private final TransactionTable transactions = new TransactionTable();
+    private final List<Word> pageWords = new ArrayList<>();
+    private float[] columnStarts; // x of each column's header, from the last header row seen
+    private int pageNumber;
+    private boolean done;
+
+    // Header
+    private String ownerLine;
+    private String dateRangeLine;
+    private String columnsLine;
+
+    // Record under construction
+    private boolean inRecord;
+    private int recordStartPage;
+    private final StringBuilder date = new StringBuilder();
+    private String time;
+    private final List<String> details = new ArrayList<>();
+    private final StringBuilder type = new StringBuilder();
+    private final StringBuilder amount = new StringBuilder();
+
+    private int errorCount;
+
+    /**
+     * Adds a word of the current page.
+     */
+    public void word(float x, float y, float height, String text) {
+        if (!done && !text.isEmpty()) {
+            pageWords.add(new Word(x, y, height, text));
+        }
+    }
+
+    /**
+     * Processes the words of the page that just ended.
+     * @return False once the end-of-statement notice has been seen and further pages are ignored.
+     */
+    public boolean endPage() {
+        pageNumber++;
+        if (done) {
+            return false;
+        }
+        List<List<Word>> lines = groupLines(pageWords);
+        pageWords.clear();
+
+        int first = 0;
+        int header = findColumnHeader(lines);
+        if (header >= 0) {
+            if (columnsLine == null) {
+                // The statement header lines are above the first column header row
+                ownerLine = header > 0 ? text(lines.get(0)) : "";
+                dateRangeLine = header > 1 ? text(lines.get(1)) : "";
+                columnsLine = text(lines.get(header));
+            }
+            first = header + 1;
+        } else if (columnStarts == null) {
+            return true; // No table on this page yet
+        }
+
+        for (int i = first; i < lines.size(); i++) {
+            List<Word> line = lines.get(i);
+            String text = text(line);
+            if (text.startsWith(END_OF_STATEMENT)) {
+                done = true;
+                break;
+            }
+            if (isFooter(text)) {
+                break; // The footer and everything below it
+            }
+            onLine(line);
+        }
+        return !done;
+    }
+
+    /**
+     * Signals the end of the document; the last record is completed.
+     * @return The parsed statement with its transactions, or null if no column header row was found.
+     */
+    public StatementMetadata finish() {
+        emitRecord();
+        done = true;
+        if (columnsLine == null) {
+            Log.warn("Could not extract metadata - no column header row found.");
+            return null;
+        }
+        StatementMetadata metadata = new StatementMetadata(ownerLine, dateRangeLine, App.extractColumnNames(columnsLine));
+        metadata.setTransactionTable(transactions);
+        return metadata;
+    }
+
+    /**
+     * @return The rows parsed so far; owned by the parser, do not modify.
+     */
+    public TransactionTable getTransactions() {
+        return transactions;
+    }
+
+    public int getTransactionCount() {
+        return transactions.size();
+    }
+
+    /**
+     * @return Number of records dropped because they could not be parsed.
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    // --- Layout ---
+
+    /**
+     * Sorts the words top to bottom, left to right, and groups those on the same baseline.
+     */
+    private static List<List<Word>> groupLines(List<Word> words) {
+        words.sort(Comparator.comparingDouble((Word word) -> word.y).thenComparingDouble(word -> word.x));
+        List<List<Word>> lines = new ArrayList<>();
+        List<Word> line = null;
+        float lineY = 0;
+        for (Word word : words) {
+            float tolerance = Math.max(1f, word.height / 2);
+            if (line == null || word.y - lineY > tolerance) {
+                line = new ArrayList<>();
+                lines.add(line);
+                lineY = word.y;
+            }
+            line.add(word);
+        }
+        for (List<Word> sameBaseline : lines) {
+            sameBaseline.sort(Comparator.comparingDouble(word -> word.x));
+        }
+        return lines;
+    }
+
+    /**
+     * Finds the "Date Transaction Details Type Amount" row and takes the column positions from it.
+     * @return The row's index, or -1.
+     */
+    private int findColumnHeader(List<List<Word>> lines) {
+        for (int i = 0; i < lines.size(); i++) {
+            List<Word> line = lines.get(i);
+            if (line.size() != COLUMN_HEADER_WORDS.length) {
+                continue;
+            }
+            boolean header = true;
+            for (int w = 0; w < line.size() && header; w++) {
+                header = line.get(w).text.equals(COLUMN_HEADER_WORDS[w]);
+            }
+            if (header) {
+                float[] starts = new float[AMOUNT + 1];
+                for (int w = 0; w < line.size(); w++) {
+                    if (COLUMN_OF_HEADER_WORD[w] >= 0) {
+                        starts[COLUMN_OF_HEADER_WORD[w]] = line.get(w).x;
+                    }
+                }
+                columnStarts = starts;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int columnOf(float x) {
+        for (int column = AMOUNT; column > DATE; column--) {
+            if (x >= columnStarts[column] - COLUMN_TOLERANCE) {
+                return column;
+            }
+        }
+        return DATE;
+    }
+
+    private static boolean isFooter(String text) {
+        if (text.startsWith(SYSTEM_GENERATED)) {
+            return true;
+        }
+        // "Page N of M"
+        int of = text.indexOf(" of ");
+        return text.startsWith("Page ") && of > 5 && isDigits(text, 5, of) && isDigits(text, of + 4, text.length());
+    }
+
+    private static boolean isDigits(String text, int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String text(List<Word> line) {
+        StringBuilder sb = new StringBuilder();
+        for (Word word : line) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(word.text);
+        }
+        return sb.toString();
+    }
+
+    // --- Records ---
+
+    private void onLine(List<Word> line) {
+        String[] cells = new String[AMOUNT + 1];
+        for (Word word : line) {
+            int column = columnOf(word.x);
+            cells[column] = cells[column] == null ? word.text : cells[column] + " " + word.text;
+        }
+
+        String dateCell = cells[DATE];
+        if (dateCell != null && Character.isLetter(dateCell.charAt(0))) {
+            // A month name: this line starts the next record
+            emitRecord();
+            inRecord = true;
+            recordStartPage = pageNumber;
+            date.append(dateCell);
+        } else if (!inRecord) {
+            STRAY_TEXT.warn("Skipping text outside a transaction on page %d: '%s'", pageNumber, text(line));
+            return;
+        } else if (dateCell != null) {
+            if (isTime(dateCell)) {
+                time = dateCell;
+            } else {
+                date.append(' ').append(dateCell); // Date wrapped onto a second line
+            }
+        }
+        if (cells[DETAILS] != null) {
+            details.add(cells[DETAILS]);
+        }
+        append(type, cells[TYPE]);
+        append(amount, cells[AMOUNT]); // Wrapped amounts continue on the next line
+    }
+
+    private static boolean isTime(String text) {
+        return (text.length() > 2 && text.charAt(2) == ':') || (text.length() > 1 && text.charAt(1) == ':');
+    }
+
+    private static void append(StringBuilder sb, String cell) {
+        if (cell != null) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(cell);
+        }
+    }
+
+    private void emitRecord() {
+        if (!inRecord) {
+            return;
+        }
+        try {
+            int idLine = 0;
+            while (idLine < details.size() && !details.get(idLine).startsWith(TRANSACTION_ID_PREFIX)) {
+                idLine++;
+            }
+            if (time == null || idLine == 0 || idLine + 1 >= details.size() || type.length() == 0 || amount.length() == 0) {
+                throw new IllegalArgumentException("incomplete record [[" + date + "]]");
+            }
+            String description = String.join(" ", details.subList(0, idLine));
+            String transactionIdLine = details.get(idLine);
+            String utrOrAccount = details.get(idLine + 1);
+            String utr;
+            String accountLine;
+            if (utrOrAccount.startsWith(UTR_PREFIX)) {
+                if (idLine + 2 >= details.size()) {
+                    throw new IllegalArgumentException("no account line [[" + date + "]]");
+                }
+                utr = TransactionTokenizer.extractUtrNo(utrOrAccount);
+                accountLine = details.get(idLine + 2);
+            } else {
+                utr = WALLET_UTR; // Wallet transactions have no UTR line
+                accountLine = utrOrAccount;
+            }
+            String transactionId = TransactionTokenizer.extractTransactionId(transactionIdLine);
+
+            String amountLine = type + " " + amount; // e.g. "Debit INR 550.00"
+            String[] amountParts = TransactionTokenizer.splitInThree(amountLine);
+            if (amountParts == null) {
+                BAD_AMOUNT.warn("Could not parse amount line format: '%s' on page %d", amountLine, recordStartPage);
+                amountParts = new String[]{"Unknown", "Unknown", amountLine};
+            }
+            transactions.record(date.toString(), time, description,
+                    transactionId != null ? transactionId : transactionIdLine,
+                    utr != null ? utr : utrOrAccount,
+                    TransactionTokenizer.extractAccount(accountLine), amountParts[0], amountParts[1], amountParts[2]);
+        } catch (RuntimeException e) {
+            errorCount++;
+            BAD_RECORD.error("Error parsing transaction starting on page %d: %s", recordStartPage, e.getMessage());
+        } finally {
+            inRecord = false;
+            date.setLength(0);
+            time = null;
+            details.clear();
+            type.setLength(0);
+            amount.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Reads a statement off the FX thread and streams its transactions to the UI while it is parsed.
+ * After each window of pages the new rows are copied into a batch (the parser's own table keeps
+ * growing and is not safe to read from another thread). Batches are queued, and at most one
+ * {@link Platform#runLater(Runnable)} is outstanding at a time: everything that arrives before it
+ * runs is delivered together, so the chart is refreshed at most once per frame however fast pages come in.
+ */
+public class StatementLoadTask extends Task<StatementMetadata> {
+
+    private final File pdfFile;
+    private final String password;
+    private final StatementCache cache;
+
+    private final Queue<TransactionTable> pendingBatches = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean();
+    private volatile Consumer<List<TransactionTable>> batchHandler;
+
+    /**
+     * Constructor for StatementLoadTask.
+     * @param cache The parse cache, or null to always parse.
+     */
+    public StatementLoadTask(File pdfFile, String password, StatementCache cache) {
+        this.pdfFile = pdfFile;
+        this.password = password;
+        this.cache = cache;
+    }
+
+    public File getPdfFile() {
+        return pdfFile;
+    }
+
+    /**
+     * Sets the handler that receives new transaction batches, in order, on the FX thread.
+     */
+    public void setBatchHandler(Consumer<List<TransactionTable>> batchHandler) {
+        this.batchHandler = batchHandler;
+    }
+
+    @Override
+    protected StatementMetadata call() throws Exception {
+        StatementMetadata metadata = App.readStatement(pdfFile, password, cache, (transactions, fromRow, pagesDone, pageCount) -> {
+            if (isCancelled()) {
+                throw new CancellationException("Statement loading cancelled");
+            }
+            if (transactions.size() > fromRow) {
+                TransactionTable batch = new TransactionTable();
+                for (int row = fromRow; row < transactions.size(); row++) {
+                    transactions.copyRowTo(row, batch);
+                }
+                pendingBatches.add(batch);
+                if (deliveryScheduled.compareAndSet(false, true)) {
+                    Platform.runLater(this::deliverPendingBatches);
+                }
+            }
+            updateProgress(pagesDone, pageCount);
+            updateMessage("Parsed " + transactions.size() + " transactions, page " + pagesDone + " of " + pageCount);
+        });
+        if (metadata == null) {
+            throw new IllegalStateException("Could not find the statement header in " + pdfFile.getName());
+        }
+        return metadata;
+    }
+
+    /**
+     * Hands every queued batch to the handler. Runs on the FX thread; also called once loading is done
+     * so no batch is left behind.
+     */
+    void deliverPendingBatches() {
+        deliveryScheduled.set(false); // Before polling, so a batch queued from now on schedules another delivery
+        List<TransactionTable> batches = new ArrayList<>();
+        for (TransactionTable batch; (batch = pendingBatches.poll()) != null; ) {
+            batches.add(batch);
+        }
+        Consumer<List<TransactionTable>> handler = batchHandler;
+        if (!batches.isEmpty() && handler != null) {
+            handler.accept(batches);
+        }
+    }
+}
@@ -1,4 +1,3 @@
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -10,7 +9,7 @@ public class StatementMetadata {
     private final String dateRange; // Stores the full second line containing the date range
 
     private final String[] columns; // Stores column
-    List<TransactionRecord> transactions;
+    private TransactionTable transactions; // Columnar store, rows are exposed as TransactionRecord views
     /**
      * Constructor for StatementMetadata.
      * @param ownerName The name extracted from the first line.
@@ -21,7 +20,7 @@ public class StatementMetadata {
         this.ownerName = ownerName != null ? ownerName.trim() : null;
         this.dateRange = dateRange != null ? dateRange.trim() : null;
         this.columns = columns;
-        transactions = new ArrayList<>();
+        transactions = new TransactionTable();
     }
 
     // Getter methods
@@ -42,13 +41,31 @@ public class StatementMetadata {
                '}';
     }
 
+    /**
+     * @return A read-only list of row views over the transaction table.
+     */
     public List<TransactionRecord> getTransactions() {
-        // Return an unmodifiable list view or a copy if modification outside is a concern
-        return transactions; // Or return Collections.unmodifiableList(transactions);
+        return transactions.asRecords();
+    }
+
+    public TransactionTable getTransactionTable() {
+        return transactions;
+    }
+
+    public String[] getColumns() {
+        return columns;
     }
 
     // Setter for transactions (used by parseReport)
     public void setTransactions(List<TransactionRecord> transactions) {
-        this.transactions = (transactions != null) ? transactions : new ArrayList<>();
+        TransactionTable table = new TransactionTable();
+        if (transactions != null) {
+            transactions.forEach(table::append);
+        }
+        this.transactions = table;
+    }
+
+    public void setTransactionTable(TransactionTable transactions) {
+        this.transactions = (transactions != null) ? transactions : new TransactionTable();
     }
 }
\ No newline at end of file
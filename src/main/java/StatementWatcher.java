@@ -0,0 +1,437 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Long-running ingestion: watches statement folders and merges every new PDF into one live
+ * {@link SpendingEngine} (and its {@link StatementMetadata} view) as soon as it has been written.
+ * A file is only picked up once its size and modification time have not changed for
+ * {@code -Dtracker.watchSettleMs} (default 2000) and it ends with a PDF trailer, so statements that
+ * are still being downloaded or copied are never parsed half-way.
+ *
+ * A statement is identified by path, size and SHA-256 of its contents: a file seen before with the
+ * same size and modification time is skipped without reading it, and a copy of a statement already
+ * ingested under another name is skipped after hashing. Only the rows of the new statement are
+ * touched (parsed, deduplicated against the transactions already merged, and appended to the cube
+ * and search index), so the time from a file landing to its rows being queryable depends on that
+ * statement alone, not on how many statements came before it.
+ *
+ * With {@code --ledger <file>} the merged transactions are also appended to a {@link TransactionLedger},
+ * and the statements seen so far are remembered in {@code <ledger>.seen}; a restart then reads the
+ * ledger once instead of parsing the archive again.
+ *
+ * Usage: {@code StatementWatcher <dir>... [--ledger <file>] [--password <pw> | --passwords <file>] [--threads <n>]},
+ * or {@code App --watch ...}.
+ */
+public class StatementWatcher implements Closeable {
+
+    private static final String USAGE = "Usage: --watch <dir>... [--ledger <file>] [--password <pw> | --passwords <file>] [--threads <n>]";
+    private static final long SETTLE_MILLIS = Long.getLong("tracker.watchSettleMs", 2000);
+    private static final int TRAILER_BYTES = 1024; // "%%EOF" must appear this close to the end of a complete PDF
+    private static final String SEEN_SUFFIX = ".seen";
+
+    private static final Metrics.Histogram INGEST_TIME = Metrics.histogram("watch.ingest");
+
+    /**
+     * Notified on the watching thread after a statement's new rows were merged.
+     */
+    public interface Listener {
+        /**
+         * @param file The statement.
+         * @param added The rows that were not merged before, already in the engine.
+         * @param duplicates Rows skipped because an earlier statement had them.
+         */
+        void statementMerged(Path file, TransactionTable added, int duplicates);
+    }
+
+    /**
+     * A statement already ingested, as remembered in the seen file.
+     */
+    private static final class Seen {
+        final String contentHash;
+        final long size;
+        final long modifiedMillis;
+
+        Seen(String contentHash, long size, long modifiedMillis) {
+            this.contentHash = contentHash;
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+        }
+    }
+
+    /**
+     * A file that changed recently and is waiting to settle.
+     */
+    private static final class Pending {
+        long lastEventMillis;
+        long size = -1;
+        long modifiedMillis = -1;
+
+        Pending(long lastEventMillis) {
+            this.lastEventMillis = lastEventMillis;
+        }
+    }
+
+    private final List<Path> directories;
+    private final BatchIngestor ingestor;
+    private final TransactionLedger ledger; // Null to keep the transactions in memory only
+    private final Path seenFile; // Null to forget seen statements on exit
+    private final SpendingEngine engine;
+    private final StatementMetadata metadata; // Live view of everything merged so far
+    private final Set<String> mergedKeys; // Dedupe keys of merged rows when there is no ledger to ask
+    private final Map<Path, Seen> seenByPath = new HashMap<>();
+    private final Set<String> seenHashes = new HashSet<>();
+    private final Map<Path, Pending> pending = new LinkedHashMap<>();
+    private final WatchService watchService;
+    private Listener listener;
+
+    /**
+     * Constructor for StatementWatcher. Reads the ledger and seen file if given, registers the
+     * directories and queues every statement in them that was not ingested yet.
+     * @param directories Folders to watch (not recursively).
+     * @param ingestor Parses the statements.
+     * @param ledger Ledger to start from and append to, or null.
+     * @param seenFile Where to remember ingested statements, or null.
+     */
+    public StatementWatcher(List<Path> directories, BatchIngestor ingestor, TransactionLedger ledger, Path seenFile) throws IOException {
+        this.directories = List.copyOf(directories);
+        this.ingestor = ingestor;
+        this.ledger = ledger;
+        this.seenFile = seenFile;
+        this.engine = new SpendingEngine(ledger != null ? ledger.readAll() : new TransactionTable());
+        this.metadata = new StatementMetadata("Watched " + this.directories, "", App.TRANSACTION_COLUMNS);
+        this.metadata.setTransactionTable(engine.getTransactions());
+        this.mergedKeys = ledger != null ? null : new HashSet<>();
+        if (seenFile != null && Files.isRegularFile(seenFile)) {
+            readSeen(seenFile);
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        try {
+            for (Path directory : this.directories) {
+                directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+            }
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+        // Register before scanning so a file written in between is not missed
+        scanDirectories();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return The engine holding every merged transaction; only use it from the watching thread (e.g. in the listener).
+     */
+    public SpendingEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return Every merged transaction as one statement; its table grows as statements are merged.
+     */
+    public StatementMetadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Watches until the thread is interrupted or the watcher is closed.
+     */
+    public void run() throws IOException {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.poll(pending.isEmpty() ? SETTLE_MILLIS * 10 : SETTLE_MILLIS / 4 + 1, TimeUnit.MILLISECONDS);
+                while (key != null) {
+                    collectEvents(key);
+                    key = watchService.poll();
+                }
+                ingestSettled();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Closed from another thread, stop watching
+        }
+    }
+
+    private void collectEvents(WatchKey key) {
+        Path directory = (Path) key.watchable();
+        long now = System.currentTimeMillis();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // Events were dropped, look at every file again
+                scanDirectories();
+                continue;
+            }
+            Path file = directory.resolve((Path) event.context());
+            if (isStatement(file)) {
+                pending.computeIfAbsent(file, path -> new Pending(now)).lastEventMillis = now;
+            }
+        }
+        if (!key.reset()) {
+            Log.warn("No longer watching %s, it is gone.", directory);
+        }
+    }
+
+    /**
+     * Queues every statement in the watched folders that is new or changed since it was seen.
+     */
+    private void scanDirectories() {
+        long now = System.currentTimeMillis();
+        for (Path directory : directories) {
+            try {
+                for (Path file : BatchIngestor.resolveInputs(directory.toString())) {
+                    Seen seen = seenByPath.get(file);
+                    if (seen == null || seen.size != Files.size(file) || seen.modifiedMillis != Files.getLastModifiedTime(file).toMillis()) {
+                        pending.putIfAbsent(file, new Pending(now));
+                    }
+                }
+            } catch (IOException e) {
+                Log.warn("Could not list %s: %s", directory, e.getMessage());
+            }
+        }
+    }
+
+    private static boolean isStatement(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".pdf");
+    }
+
+    /**
+     * Ingests the pending files that have been quiet for the settle time and whose size and
+     * modification time did not change since the last look.
+     */
+    private void ingestSettled() throws IOException {
+        long now = System.currentTimeMillis();
+        List<Path> ready = new ArrayList<>();
+        Map<Path, Seen> identities = new HashMap<>();
+        for (Iterator<Map.Entry<Path, Pending>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, Pending> entry = it.next();
+            Path file = entry.getKey();
+            Pending state = entry.getValue();
+            if (now - state.lastEventMillis < SETTLE_MILLIS) {
+                continue;
+            }
+            if (!Files.isRegularFile(file)) {
+                it.remove(); // Deleted or renamed before it settled
+                continue;
+            }
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (size != state.size || modified != state.modifiedMillis) {
+                // Still changing without events (some file systems report only the first write), look again later
+                state.size = size;
+                state.modifiedMillis = modified;
+                state.lastEventMillis = now;
+                continue;
+            }
+            it.remove();
+            if (!hasPdfTrailer(file, size)) {
+                // Written in pieces with long pauses; the next write brings it back
+                Log.info("Waiting for %s to be complete.", file);
+                continue;
+            }
+            String contentHash = StatementCache.contentHash(file);
+            Seen identity = new Seen(contentHash, size, modified);
+            if (seenHashes.contains(contentHash)) {
+                Log.info("SEEN   %s: already ingested.", file);
+                remember(file, identity);
+                continue;
+            }
+            identities.put(file, identity);
+            ready.add(file);
+        }
+        if (!ready.isEmpty()) {
+            ingest(ready, identities);
+        }
+    }
+
+    private static boolean hasPdfTrailer(Path file, long size) throws IOException {
+        int length = (int) Math.min(size, TRAILER_BYTES);
+        byte[] tail = new byte[length];
+        try (RandomAccessFile in = new RandomAccessFile(file.toFile(), "r")) {
+            in.seek(size - length);
+            in.readFully(tail);
+        }
+        return new String(tail, StandardCharsets.ISO_8859_1).contains("%%EOF");
+    }
+
+    private void ingest(List<Path> files, Map<Path, Seen> identities) throws IOException {
+        long start = System.nanoTime();
+        for (BatchIngestor.Result result : ingestor.ingest(files)) {
+            if (!result.isSuccess()) {
+                // Not remembered, so a corrected copy under the same name is tried again
+                continue;
+            }
+            long mergeStart = System.nanoTime();
+            TransactionTable statement = result.getMetadata().getTransactionTable();
+            TransactionTable added = newRows(statement);
+            engine.addAll(added);
+            if (ledger != null) {
+                ledger.append(added);
+            }
+            remember(result.getFile(), identities.get(result.getFile()));
+            INGEST_TIME.recordSince(start);
+            int duplicates = statement.size() - added.size();
+            Log.info("MERGED %s: %d new, %d duplicate, %d total in %.1f ms (merge %.1f ms)", result.getFile(),
+                    added.size(), duplicates, engine.size(), (System.nanoTime() - start) / 1_000_000.0,
+                    (System.nanoTime() - mergeStart) / 1_000_000.0);
+            if (listener != null) {
+                listener.statementMerged(result.getFile(), added, duplicates);
+            }
+        }
+    }
+
+    /**
+     * @return The rows of {@code statement} not merged before, e.g. from an overlapping statement, in order.
+     */
+    private TransactionTable newRows(TransactionTable statement) {
+        TransactionTable added = new TransactionTable();
+        Set<String> statementKeys = ledger != null ? new HashSet<>() : mergedKeys; // The ledger only knows earlier statements
+        for (int row = 0; row < statement.size(); row++) {
+            String date = statement.getDate(row);
+            String time = statement.getTime(row);
+            String description = statement.getDescription(row);
+            String transactionId = statement.getTransactionId(row);
+            String utr = statement.getUtr(row);
+            String amount = statement.getAmountText(row);
+            boolean merged = !statementKeys.add(TransactionLedger.dedupeKey(date, time, description, transactionId, utr, amount))
+                    || (ledger != null && ledger.contains(date, time, description, transactionId, utr, amount));
+            if (!merged) {
+                statement.copyRowTo(row, added);
+            }
+        }
+        return added;
+    }
+
+    // --- Seen statements ---
+
+    private void remember(Path file, Seen seen) throws IOException {
+        seenByPath.put(file, seen);
+        seenHashes.add(seen.contentHash);
+        if (seenFile != null) {
+            // One line per statement, appended, so remembering stays cheap however many came before
+            String line = seen.contentHash + '\t' + seen.size + '\t' + seen.modifiedMillis + '\t' + file + '\n';
+            Files.write(seenFile, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private void readSeen(Path file) throws IOException {
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t", 4);
+            if (fields.length < 4) {
+                continue; // Cut short by a crash while appending
+            }
+            try {
+                Seen seen = new Seen(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]));
+                seenByPath.put(Paths.get(fields[3]), seen);
+                seenHashes.add(seen.contentHash);
+            } catch (NumberFormatException e) {
+                Log.warn("Ignoring bad line in %s: %s", file, line);
+            }
+        }
+    }
+
+    /**
+     * Makes {@link #run()} return, e.g. from a shutdown hook.
+     */
+    public void stop() throws IOException {
+        watchService.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        stop();
+    }
+
+    // --- Command line ---
+
+    public static void main(String[] args) {
+        List<Path> directories = new ArrayList<>();
+        Path ledgerFile = null;
+        PasswordSource passwords = PasswordSource.fixed(null);
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--ledger":
+                        ledgerFile = Paths.get(args[++i]);
+                        break;
+                    case "--password":
+                        passwords = PasswordSource.fixed(args[++i]);
+                        break;
+                    case "--passwords":
+                        passwords = PasswordSource.fromProperties(Paths.get(args[++i]));
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        }
+                        Path directory = Paths.get(args[i]);
+                        if (!Files.isDirectory(directory)) {
+                            throw new IllegalArgumentException("Not a directory: " + directory);
+                        }
+                        directories.add(directory);
+                }
+            }
+            if (directories.isEmpty()) {
+                throw new IllegalArgumentException("Give at least one directory to watch");
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | IOException e) {
+            Log.error("%s", e.getMessage());
+            Log.flush();
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        StatementCache cache = Boolean.getBoolean("tracker.noCache") ? null : StatementCache.defaultCache();
+        BatchIngestor ingestor = new BatchIngestor(passwords, threads, cache);
+        Path seenFile = ledgerFile != null ? Paths.get(ledgerFile + SEEN_SUFFIX) : null;
+        try (TransactionLedger ledger = ledgerFile != null ? TransactionLedger.open(ledgerFile) : null;
+             StatementWatcher watcher = new StatementWatcher(directories, ingestor, ledger, seenFile)) {
+            Log.info("Watching %s with %d transactions, %d statement(s) queued",
+                    directories, watcher.getEngine().size(), watcher.pending.size());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    watcher.stop();
+                } catch (IOException e) {
+                    // Exiting anyway
+                }
+                Metrics.printSummary(System.err);
+            }));
+            watcher.run();
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+            Log.flush();
+            System.exit(1);
+        }
+    }
+}
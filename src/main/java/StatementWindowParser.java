@@ -0,0 +1,88 @@
+/**
+ * Incrementally parses statement text that arrives as consecutive windows of pages.
+ * The first window supplies the owner, date range and column header lines; all text is
+ * pushed through one {@link TransactionTokenizer}, which keeps the partial line and record
+ * that run over the end of a window until the next one arrives.
+ */
+public class StatementWindowParser {
+
+    /**
+     * Notified on the parsing thread after each window of pages has been parsed.
+     */
+    public interface Listener {
+        /**
+         * @param transactions All rows parsed so far; rows from {@code fromRow} on are new. Only read it during the call.
+         * @param fromRow First row added by this window.
+         * @param pagesDone Pages parsed so far.
+         * @param pageCount Pages in the statement.
+         */
+        void windowParsed(TransactionTable transactions, int fromRow, int pagesDone, int pageCount);
+    }
+
+    private final TransactionTable transactions = new TransactionTable();
+    private final TransactionTokenizer tokenizer = new TransactionTokenizer(transactions, true);
+    private boolean finished;
+
+    /**
+     * Feeds the text of the next window of pages.
+     * @param windowText The text stripped from the window.
+     * @param lastWindow True if no more text follows.
+     * @return False once nothing more needs to be fed (end-of-statement marker or unusable header).
+     */
+    public boolean accept(String windowText, boolean lastWindow) {
+        if (finished) {
+            return false;
+        }
+        if (Log.isDebugEnabled()) {
+            Log.debug("--- Extracted PDF Text ---%n%s%n--- End of PDF Text ---", windowText);
+        }
+        PipelineEvents.Parse event = new PipelineEvents.Parse();
+        event.start();
+        int records = transactions.size();
+        int errors = tokenizer.getErrorCount();
+        boolean more = tokenizer.feed(windowText);
+        if (!more || lastWindow) {
+            tokenizer.finish();
+            finished = true;
+        }
+        PipelineEvents.parsed(event, windowText.length(), transactions.size() - records, tokenizer.getErrorCount() - errors);
+        return !finished;
+    }
+
+    /**
+     * @return The parsed statement with its transactions, or null if the header lines were never found.
+     */
+    public StatementMetadata finish() {
+        if (!finished) {
+            tokenizer.finish();
+            finished = true;
+        }
+        if (!tokenizer.isHeaderComplete()) {
+            Log.warn("Could not extract metadata - PDF text has fewer than 2 lines.");
+            if (tokenizer.getOwnerLine() != null) Log.warn("First line: %s", tokenizer.getOwnerLine());
+            return null;
+        }
+        StatementMetadata metadata = new StatementMetadata(tokenizer.getOwnerLine(), tokenizer.getDateRangeLine(),
+                App.extractColumnNames(tokenizer.getColumnsLine()));
+        metadata.setTransactionTable(transactions);
+        return metadata;
+    }
+
+    /**
+     * @return The rows parsed so far; owned by the parser, do not modify.
+     */
+    public TransactionTable getTransactions() {
+        return transactions;
+    }
+
+    public int getTransactionCount() {
+        return transactions.size();
+    }
+
+    /**
+     * @return Number of records dropped because they could not be parsed.
+     */
+    public int getErrorCount() {
+        return tokenizer.getErrorCount();
+    }
+}
@@ -0,0 +1,65 @@
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+
+/**
+ * Reads a statement a window of pages at a time instead of calling getText() on the whole document.
+ * Only the text of the current window plus the few lines of a record that runs over a page break
+ * are kept in memory, so heap use does not grow with the size of the statement.
+ */
+public class StreamingStatementReader {
+
+    private final int pagesPerWindow;
+    private StatementWindowParser.Listener listener;
+
+    /**
+     * Constructor for StreamingStatementReader.
+     * @param pagesPerWindow How many pages to strip in one go.
+     */
+    public StreamingStatementReader(int pagesPerWindow) {
+        if (pagesPerWindow < 1) {
+            throw new IllegalArgumentException("pagesPerWindow must be at least 1, was " + pagesPerWindow);
+        }
+        this.pagesPerWindow = pagesPerWindow;
+    }
+
+    /**
+     * Sets a listener that sees the rows of every window as soon as they are parsed.
+     */
+    public void setListener(StatementWindowParser.Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Extracts the metadata and all transaction records from the document.
+     * @param document An already loaded (and decrypted) statement.
+     * @return The parsed statement, or null if the header lines could not be found.
+     */
+    public StatementMetadata read(PDDocument document) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        int pageCount = document.getNumberOfPages();
+        StatementWindowParser parser = new StatementWindowParser();
+
+        Log.info("\n--- Parsing Transaction Records (Streaming, %d pages per window) ---", pagesPerWindow);
+
+        for (int startPage = 1; startPage <= pageCount; startPage += pagesPerWindow) {
+            int endPage = Math.min(startPage + pagesPerWindow - 1, pageCount);
+            stripper.setStartPage(startPage);
+            stripper.setEndPage(endPage);
+            int fromRow = parser.getTransactionCount();
+            boolean more = parser.accept(PipelineEvents.stripText(stripper, document), endPage == pageCount);
+            PdfLoadMode.releasePageResources(document);
+            if (listener != null) {
+                listener.windowParsed(parser.getTransactions(), fromRow, endPage, pageCount);
+            }
+            if (!more) {
+                break;
+            }
+        }
+
+        Log.info("Parsed %d transaction records from %d page(s).", parser.getTransactionCount(), pageCount);
+        Log.info("--- End of Transaction Parsing ---");
+        return parser.finish();
+    }
+}
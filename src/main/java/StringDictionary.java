@@ -0,0 +1,73 @@
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps repeated strings (descriptions, accounts, currencies, ...) to small int codes,
+ * so a column stores one int per row and each distinct value only once.
+ */
+public class StringDictionary {
+
+    public static final int NULL_CODE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * @return The code for {@code value}, adding it to the dictionary if it is new.
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * @return The code for {@code value}, or {@link #NULL_CODE} if it has never been encoded.
+     */
+    public int lookup(String value) {
+        Integer code = value != null ? codes.get(value) : null;
+        return code != null ? code : NULL_CODE;
+    }
+
+    public String decode(int code) {
+        return code == NULL_CODE ? null : values.get(code);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            BinaryFormat.writeString(out, value);
+        }
+    }
+
+    /**
+     * Reads a dictionary written by {@link #writeTo(DataOutput)}; codes are the same as before.
+     */
+    static StringDictionary readFrom(ByteBuffer in) {
+        StringDictionary dictionary = new StringDictionary();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            dictionary.encode(BinaryFormat.readString(in));
+        }
+        return dictionary;
+    }
+
+    /**
+     * @return Number of distinct values.
+     */
+    public int size() {
+        return values.size();
+    }
+}
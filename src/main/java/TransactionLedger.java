@@ -0,0 +1,302 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Durable, append-only file of transactions merged from many statements.
+ * The file is memory-mapped; each record is written once, after which the header's record count
+ * and end offset are updated, so a crash mid-append leaves the earlier records intact.
+ * An in-memory open-addressing hash index on the dedupe key (TransactionID, falling back to UTR)
+ * makes the duplicate check on insert O(1), so overlapping statements only add the records
+ * that have not been seen before. The index is rebuilt by scanning the keys when the ledger is
+ * opened; no PDF is ever parsed again.
+ *
+ * Layout: header {@code [magic][version][record count:long][data end:long]}, then records
+ * {@code [length][key][date][time][description][transaction id][utr][account][type][currency][amount]}
+ * with every string length-prefixed UTF-8. A single mapping limits the file to 2 GB.
+ * The file is locked while open, so two processes (e.g. a watch daemon and a batch run) never
+ * append to it at the same time.
+ */
+public class TransactionLedger implements Closeable {
+
+    private static final int MAGIC = 0x50504c47; // "PPLG"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int COUNT_OFFSET = 8;
+    private static final int DATA_END_OFFSET = 16;
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    private static final String WALLET_UTR = "Wallets txn has no UTR";
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long recordCount;
+    private int dataEnd;
+
+    // Open-addressing index: slot -> record offset + 1 (0 = empty), with the key hash for a cheap first check
+    private int[] slotOffsets = new int[1 << 10];
+    private int[] slotHashes = new int[1 << 10];
+    private int indexed;
+
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(recordBytes);
+
+    private TransactionLedger(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a ledger, creating the file if it does not exist yet.
+     * @throws IOException Also if another process, or another open ledger in this one, is using the file.
+     */
+    public static TransactionLedger open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        TransactionLedger ledger = new TransactionLedger(channel);
+        try {
+            FileLock lock;
+            try {
+                lock = channel.tryLock(); // Released when the channel is closed
+            } catch (OverlappingFileLockException e) {
+                lock = null; // Already open in this JVM
+            }
+            if (lock == null) {
+                throw new IOException("Ledger in use by another process or run: " + file);
+            }
+            if (channel.size() == 0) {
+                ledger.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_CAPACITY);
+                ledger.buffer.putInt(0, MAGIC);
+                ledger.buffer.putInt(4, FORMAT_VERSION);
+                ledger.dataEnd = HEADER_SIZE;
+                ledger.writeHeader();
+            } else {
+                ledger.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                if (ledger.buffer.getInt(0) != MAGIC || ledger.buffer.getInt(4) != FORMAT_VERSION) {
+                    throw new IOException("Not a transaction ledger (or written by another version): " + file);
+                }
+                ledger.recordCount = ledger.buffer.getLong(COUNT_OFFSET);
+                ledger.dataEnd = (int) ledger.buffer.getLong(DATA_END_OFFSET);
+                ledger.rebuildIndex();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return ledger;
+    }
+
+    /**
+     * Appends every row of {@code table} whose dedupe key is not in the ledger yet.
+     * @return Number of rows actually written.
+     */
+    public int append(TransactionTable table) throws IOException {
+        int written = 0;
+        for (int row = 0; row < table.size(); row++) {
+            if (append(table.getDate(row), table.getTime(row), table.getDescription(row), table.getTransactionId(row),
+                    table.getUtr(row), table.getAccount(row), table.getType(row), table.getCurrency(row), table.getAmountText(row))) {
+                written++;
+            }
+        }
+        writeHeader();
+        buffer.force();
+        return written;
+    }
+
+    private boolean append(String date, String time, String description, String transactionId, String utr,
+                           String account, String type, String currency, String amount) throws IOException {
+        byte[] key = dedupeKey(date, time, description, transactionId, utr, amount).getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key, 0, key.length);
+        if (find(key, hash) >= 0) {
+            return false; // Already merged from an earlier statement
+        }
+
+        recordBytes.reset();
+        recordOut.writeInt(0); // Length placeholder
+        recordOut.writeInt(key.length);
+        recordOut.write(key);
+        for (String value : new String[]{date, time, description, transactionId, utr, account, type, currency, amount}) {
+            BinaryFormat.writeString(recordOut, value);
+        }
+        byte[] bytes = recordBytes.toByteArray();
+        int length = bytes.length - Integer.BYTES;
+        bytes[0] = (byte) (length >>> 24);
+        bytes[1] = (byte) (length >>> 16);
+        bytes[2] = (byte) (length >>> 8);
+        bytes[3] = (byte) length;
+
+        ensureCapacity(bytes.length);
+        int offset = dataEnd;
+        buffer.put(offset, bytes);
+        dataEnd += bytes.length;
+        recordCount++;
+        insert(offset, hash);
+        return true;
+    }
+
+    /**
+     * Loads every record into a new table.
+     */
+    public TransactionTable readAll() {
+        TransactionTable table = new TransactionTable();
+        MappedByteBuffer in = buffer.duplicate();
+        int offset = HEADER_SIZE;
+        while (offset < dataEnd) {
+            int length = buffer.getInt(offset);
+            in.position(offset + Integer.BYTES);
+            int keyLength = in.getInt();
+            in.position(in.position() + keyLength);
+            table.record(BinaryFormat.readString(in), BinaryFormat.readString(in), BinaryFormat.readString(in),
+                    BinaryFormat.readString(in), BinaryFormat.readString(in), BinaryFormat.readString(in),
+                    BinaryFormat.readString(in), BinaryFormat.readString(in), BinaryFormat.readString(in));
+            offset += Integer.BYTES + length;
+        }
+        return table;
+    }
+
+    public long size() {
+        return recordCount;
+    }
+
+    /**
+     * @return True if a transaction with this dedupe key has been merged already.
+     */
+    public boolean contains(String date, String time, String description, String transactionId, String utr, String amount) {
+        byte[] key = dedupeKey(date, time, description, transactionId, utr, amount).getBytes(StandardCharsets.UTF_8);
+        return find(key, hash(key, 0, key.length)) >= 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeHeader();
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * The identity of a transaction across statements: its TransactionID, else its UTR, else its
+     * visible fields for the rare record that has neither.
+     */
+    static String dedupeKey(String date, String time, String description, String transactionId, String utr, String amount) {
+        if (transactionId != null && !transactionId.isEmpty()) {
+            return "T:" + transactionId;
+        }
+        if (utr != null && !utr.isEmpty() && !utr.equals(WALLET_UTR)) {
+            return "U:" + utr;
+        }
+        return "R:" + date + '|' + time + '|' + description + '|' + amount;
+    }
+
+    // --- Index ---
+
+    private void rebuildIndex() {
+        int offset = HEADER_SIZE;
+        while (offset < dataEnd) {
+            int length = buffer.getInt(offset);
+            int keyLength = buffer.getInt(offset + Integer.BYTES);
+            insert(offset, hash(buffer, offset + 2 * Integer.BYTES, keyLength));
+            offset += Integer.BYTES + length;
+        }
+    }
+
+    private int find(byte[] key, int hash) {
+        int mask = slotOffsets.length - 1;
+        for (int slot = hash & mask; slotOffsets[slot] != 0; slot = (slot + 1) & mask) {
+            if (slotHashes[slot] == hash && keyEquals(slotOffsets[slot] - 1, key)) {
+                return slotOffsets[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int offset, int hash) {
+        if ((indexed + 1) * 2 > slotOffsets.length) {
+            resizeIndex();
+        }
+        int mask = slotOffsets.length - 1;
+        int slot = hash & mask;
+        while (slotOffsets[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slotOffsets[slot] = offset + 1;
+        slotHashes[slot] = hash;
+        indexed++;
+    }
+
+    private void resizeIndex() {
+        int[] oldOffsets = slotOffsets;
+        int[] oldHashes = slotHashes;
+        slotOffsets = new int[oldOffsets.length * 2];
+        slotHashes = new int[oldOffsets.length * 2];
+        indexed = 0;
+        for (int slot = 0; slot < oldOffsets.length; slot++) {
+            if (oldOffsets[slot] != 0) {
+                insert(oldOffsets[slot] - 1, oldHashes[slot]);
+            }
+        }
+    }
+
+    private boolean keyEquals(int recordOffset, byte[] key) {
+        int keyLength = buffer.getInt(recordOffset + Integer.BYTES);
+        if (keyLength != key.length) {
+            return false;
+        }
+        int start = recordOffset + 2 * Integer.BYTES;
+        for (int i = 0; i < keyLength; i++) {
+            if (buffer.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] bytes, int from, int length) {
+        int h = 0x811c9dc5; // FNV-1a
+        for (int i = from; i < from + length; i++) {
+            h = (h ^ (bytes[i] & 0xff)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(MappedByteBuffer bytes, int from, int length) {
+        int h = 0x811c9dc5;
+        for (int i = from; i < from + length; i++) {
+            h = (h ^ (bytes.get(i) & 0xff)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    // --- Storage ---
+
+    private void writeHeader() {
+        buffer.putLong(COUNT_OFFSET, recordCount);
+        buffer.putLong(DATA_END_OFFSET, dataEnd);
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        long needed = (long) dataEnd + bytes;
+        if (needed <= buffer.capacity()) {
+            return;
+        }
+        long newCapacity = Math.max(needed, (long) buffer.capacity() * 2);
+        if (newCapacity > Integer.MAX_VALUE) {
+            newCapacity = Integer.MAX_VALUE;
+            if (needed > newCapacity) {
+                throw new IOException("Ledger is full (2 GB limit of a single mapping)");
+            }
+        }
+        writeHeader();
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newCapacity); // Grows the file
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionLedger{records=" + recordCount + ", bytes=" + dataEnd + '}';
+    }
+}
@@ -20,6 +20,14 @@ public class TransactionRecord {
         this.data = (data != null) ? Collections.unmodifiableMap(data) : Collections.emptyMap();
     }
 
+    /**
+     * Constructor for records that are views over another store (see {@link TransactionTable#getRow(int)}).
+     * Such subclasses override {@link #getValue(String)} and {@link #getData()}.
+     */
+    protected TransactionRecord() {
+        this.data = Collections.emptyMap();
+    }
+
     /**
      * Gets the value for a specific column name.
      * @param columnName The name of the column.
@@ -42,6 +50,7 @@ public class TransactionRecord {
     public String toString() {
         // Provide a meaningful string representation for debugging
         StringBuilder sb = new StringBuilder("TransactionRecord{");
+        Map<String, String> data = getData();
         data.forEach((key, value) -> sb.append(key).append("='").append(value).append("', "));
         // Remove trailing comma and space if data exists
         if (!data.isEmpty()) {
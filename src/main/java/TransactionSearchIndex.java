@@ -0,0 +1,422 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Search over the rows of a {@link TransactionTable}, built as rows are added.
+ *
+ * Descriptions are split into lower-case letter/digit tokens. Because descriptions are
+ * dictionary-encoded and repeat a lot, postings point from each term to description codes, and
+ * each description code lists its rows; a million rows usually have only thousands of distinct
+ * descriptions. Terms are kept in a sorted dictionary, so every query token matches a contiguous
+ * range of terms by prefix ("swig" finds "swiggy"). A row matches if its description has a term
+ * in the range of every query token. Transaction IDs and UTRs are looked up exactly in open
+ * addressing hash tables of row numbers, which store no keys of their own.
+ *
+ * Not thread-safe; rows are added and searched from one thread.
+ */
+public class TransactionSearchIndex {
+
+    /**
+     * Rows matching a query.
+     */
+    public static final class Result {
+        private final int[] rows;
+        private final int totalMatches;
+
+        Result(int[] rows, int totalMatches) {
+            this.rows = rows;
+            this.totalMatches = totalMatches;
+        }
+
+        /**
+         * @return The first matching rows: exact ID/UTR matches first, then description matches in table order.
+         */
+        public int[] getRows() {
+            return rows;
+        }
+
+        /**
+         * @return How many rows match in total, which may be more than {@link #getRows()} returns.
+         */
+        public int getTotalMatches() {
+            return totalMatches;
+        }
+    }
+
+    private static final Result NO_MATCHES = new Result(new int[0], 0);
+
+    private final TransactionTable table;
+    private int indexedRows;
+
+    // Terms
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>(); // By term id
+    private int[][] codesByTerm = new int[16][]; // Description codes containing the term, ascending
+    private int[] codeCountByTerm = new int[16];
+    private String[] sortedTerms = new String[0]; // Rebuilt when terms were added since the last search
+    private int[] sortedTermIds = new int[0]; // Term id of each entry of sortedTerms
+    private int[] termRanks = new int[0]; // Position of each term id in sortedTerms
+
+    // Description codes
+    private int[][] termsByCode = new int[16][]; // Distinct term ids of each description
+    private int[][] rowsByCode = new int[16][];  // Rows with each description, ascending
+    private int[] rowCountByCode = new int[16];
+    private int indexedCodes;
+
+    // Exact lookups: slot -> row + 1, or 0 if empty
+    private int[] idSlots = new int[64];
+    private int[] utrSlots = new int[64];
+    private int idCount;
+    private int utrCount;
+
+    /**
+     * Constructor for TransactionSearchIndex; indexes the rows the table has so far.
+     */
+    public TransactionSearchIndex(TransactionTable table) {
+        this.table = table;
+        addRows();
+    }
+
+    /**
+     * Indexes the rows appended to the table since the last call.
+     */
+    public void addRows() {
+        for (int row = indexedRows; row < table.size(); row++) {
+            int code = table.getDescriptionCode(row);
+            if (code != StringDictionary.NULL_CODE) {
+                while (indexedCodes <= code) {
+                    indexDescription(indexedCodes++);
+                }
+                rowsByCode[code] = append(rowsByCode[code], rowCountByCode[code]++, row);
+            }
+            if (isIdentifier(table.getTransactionId(row))) {
+                idSlots = insert(idSlots, ++idCount, table.getTransactionId(row), row, true);
+            }
+            if (isIdentifier(table.getUtr(row))) {
+                utrSlots = insert(utrSlots, ++utrCount, table.getUtr(row), row, false);
+            }
+        }
+        indexedRows = table.size();
+    }
+
+    public int getTermCount() {
+        return terms.size();
+    }
+
+    /**
+     * Finds the rows whose transaction ID or UTR is exactly {@code query}, and the rows whose
+     * description has a term starting with each word of the query (case-insensitive).
+     * @param limit Maximum number of rows to return; the total is still counted.
+     */
+    public Result search(String query, int limit) {
+        String trimmed = query.trim();
+        if (trimmed.isEmpty()) {
+            return NO_MATCHES;
+        }
+        int[] exact = exactMatches(trimmed);
+        List<String> tokens = tokenize(trimmed);
+        int[] codes = tokens.isEmpty() ? new int[0] : matchingCodes(tokens);
+
+        int total = exact.length;
+        for (int code : codes) {
+            total += rowCountByCode[code];
+        }
+        for (int row : exact) {
+            if (Arrays.binarySearch(codes, table.getDescriptionCode(row)) >= 0) {
+                total--; // Counted as an exact match already
+            }
+        }
+        int[] rows = Arrays.copyOf(exact, Math.min(limit, total));
+        int count = Math.min(exact.length, rows.length);
+        if (count < rows.length) {
+            count = firstRows(codes, exact, rows, count);
+        }
+        return new Result(count == rows.length ? rows : Arrays.copyOf(rows, count), total);
+    }
+
+    /**
+     * @return Rows whose transaction ID or UTR is {@code key}.
+     */
+    public int[] exactMatches(String key) {
+        int[] matches = new int[0];
+        for (int pass = 0; pass < 2; pass++) {
+            boolean ids = pass == 0;
+            int[] slots = ids ? idSlots : utrSlots;
+            int mask = slots.length - 1;
+            for (int slot = slotOf(key.hashCode(), slots.length); slots[slot] != 0; slot = (slot + 1) & mask) {
+                int row = slots[slot] - 1;
+                if (key.equals(ids ? table.getTransactionId(row) : table.getUtr(row)) && !contains(matches, matches.length, row)) {
+                    matches = Arrays.copyOf(matches, matches.length + 1);
+                    matches[matches.length - 1] = row;
+                }
+            }
+        }
+        Arrays.sort(matches);
+        return matches;
+    }
+
+    /**
+     * Splits text into lower-case runs of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // --- Building ---
+
+    private void indexDescription(int code) {
+        ensureCodeCapacity(code + 1);
+        List<String> tokens = tokenize(table.getDescriptionDictionary().decode(code));
+        int[] ids = new int[tokens.size()];
+        int count = 0;
+        for (String token : tokens) {
+            Integer id = termIds.get(token);
+            if (id == null) {
+                id = terms.size();
+                termIds.put(token, id);
+                terms.add(token);
+                ensureTermCapacity(id + 1);
+            }
+            if (!contains(ids, count, id)) {
+                ids[count++] = id;
+                codesByTerm[id] = append(codesByTerm[id], codeCountByTerm[id]++, code);
+            }
+        }
+        termsByCode[code] = Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Whether a value is worth an exact-match entry. Placeholders like "Wallets txn has no UTR"
+     * have no digits; they are shared by many rows and would only make long probe chains.
+     */
+    private static boolean isIdentifier(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isDigit(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] append(int[] values, int size, int value) {
+        if (values == null) {
+            values = new int[4];
+        } else if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        return values;
+    }
+
+    private void ensureTermCapacity(int capacity) {
+        if (capacity > codesByTerm.length) {
+            int newCapacity = Math.max(capacity, codesByTerm.length * 2);
+            codesByTerm = Arrays.copyOf(codesByTerm, newCapacity);
+            codeCountByTerm = Arrays.copyOf(codeCountByTerm, newCapacity);
+        }
+    }
+
+    private void ensureCodeCapacity(int capacity) {
+        if (capacity > termsByCode.length) {
+            int newCapacity = Math.max(capacity, termsByCode.length * 2);
+            termsByCode = Arrays.copyOf(termsByCode, newCapacity);
+            rowsByCode = Arrays.copyOf(rowsByCode, newCapacity);
+            rowCountByCode = Arrays.copyOf(rowCountByCode, newCapacity);
+        }
+    }
+
+    /**
+     * Adds a row under {@code key}, doubling the table first if it would be more than half full.
+     * @param count Number of keys including this one.
+     * @return The table, which may be a new one.
+     */
+    private int[] insert(int[] slots, int count, String key, int row, boolean ids) {
+        if (count * 2 > slots.length) {
+            int[] grown = new int[slots.length * 2];
+            for (int entry : slots) {
+                if (entry != 0) {
+                    String existing = ids ? table.getTransactionId(entry - 1) : table.getUtr(entry - 1);
+                    place(grown, existing.hashCode(), entry);
+                }
+            }
+            slots = grown;
+        }
+        place(slots, key.hashCode(), row + 1);
+        return slots;
+    }
+
+    private static void place(int[] slots, int hash, int entry) {
+        int mask = slots.length - 1;
+        int slot = slotOf(hash, slots.length);
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry;
+    }
+
+    /**
+     * Fibonacci hashing: IDs are mostly sequential, so their string hashes are too, and taking the
+     * low bits would fill runs of neighbouring slots that every later probe has to walk.
+     */
+    private static int slotOf(int hash, int tableLength) {
+        return (hash * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(tableLength));
+    }
+
+    // --- Searching ---
+
+    /**
+     * Sorts the term dictionary if terms were added since the last search.
+     */
+    private void ensureSorted() {
+        if (sortedTerms.length == terms.size()) {
+            return;
+        }
+        sortedTerms = terms.toArray(new String[0]);
+        Arrays.sort(sortedTerms);
+        sortedTermIds = new int[sortedTerms.length];
+        termRanks = new int[sortedTerms.length];
+        for (int rank = 0; rank < sortedTerms.length; rank++) {
+            sortedTermIds[rank] = termIds.get(sortedTerms[rank]);
+            termRanks[sortedTermIds[rank]] = rank;
+        }
+    }
+
+    /**
+     * @return The description codes with a term in the prefix range of every token, ascending.
+     */
+    private int[] matchingCodes(List<String> tokens) {
+        ensureSorted();
+        int[][] ranges = new int[tokens.size()][];
+        int narrowest = 0;
+        long narrowestCost = Long.MAX_VALUE;
+        for (int t = 0; t < tokens.size(); t++) {
+            String token = tokens.get(t);
+            int from = lowerBound(token);
+            int to = from;
+            long cost = 0;
+            while (to < sortedTerms.length && sortedTerms[to].startsWith(token)) {
+                cost += codeCountByTerm[sortedTermIds[to]];
+                to++;
+            }
+            if (from == to) {
+                return new int[0];
+            }
+            ranges[t] = new int[]{from, to};
+            if (cost < narrowestCost) {
+                narrowestCost = cost;
+                narrowest = t;
+            }
+        }
+
+        // Candidates from the token with the fewest postings, checked against the others
+        int[] candidates = new int[(int) narrowestCost];
+        int count = 0;
+        for (int rank = ranges[narrowest][0]; rank < ranges[narrowest][1]; rank++) {
+            int term = sortedTermIds[rank];
+            System.arraycopy(codesByTerm[term], 0, candidates, count, codeCountByTerm[term]);
+            count += codeCountByTerm[term];
+        }
+        if (ranges[narrowest][1] - ranges[narrowest][0] > 1) {
+            Arrays.sort(candidates, 0, count);
+        }
+        int matches = 0;
+        int previous = -1;
+        for (int i = 0; i < count; i++) {
+            int code = candidates[i];
+            if (code != previous && hasAllTokens(code, ranges, narrowest)) {
+                candidates[matches++] = code;
+            }
+            previous = code;
+        }
+        return Arrays.copyOf(candidates, matches);
+    }
+
+    private boolean hasAllTokens(int code, int[][] ranges, int skip) {
+        for (int t = 0; t < ranges.length; t++) {
+            if (t == skip) {
+                continue;
+            }
+            boolean found = false;
+            for (int term : termsByCode[code]) {
+                int rank = termRanks[term];
+                if (rank >= ranges[t][0] && rank < ranges[t][1]) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int lowerBound(String token) {
+        int low = 0;
+        int high = sortedTerms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedTerms[mid].compareTo(token) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Fills {@code rows} from {@code count} on with the lowest rows of the given descriptions,
+     * merging their row lists with a heap and skipping rows already taken as exact matches.
+     * @return The number of rows filled.
+     */
+    private int firstRows(int[] codes, int[] exact, int[] rows, int count) {
+        // Heap entries: (row << 32) | index into codes, ordered by row
+        PriorityQueue<Long> heap = new PriorityQueue<>(Math.max(1, codes.length));
+        int[] positions = new int[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            heap.add(((long) rowsByCode[codes[i]][0] << 32) | i);
+        }
+        while (count < rows.length && !heap.isEmpty()) {
+            long top = heap.poll();
+            int row = (int) (top >>> 32);
+            int i = (int) top;
+            if (Arrays.binarySearch(exact, row) < 0) {
+                rows[count++] = row;
+            }
+            int code = codes[i];
+            if (++positions[i] < rowCountByCode[code]) {
+                heap.add(((long) rowsByCode[code][positions[i]] << 32) | i);
+            }
+        }
+        return count;
+    }
+}
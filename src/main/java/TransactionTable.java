@@ -0,0 +1,460 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column-oriented store for the transactions of a statement.
+ * Each column is a primitive array indexed by row: dates and times are parsed once into epoch
+ * days/seconds, amounts into minor units (paise), the type into a byte flag, and repeated text
+ * (descriptions, accounts, currencies, ...) is dictionary-encoded. Rows can still be read as
+ * {@link TransactionRecord}s through {@link #getRow(int)} and {@link #asRecords()}.
+ */
+public class TransactionTable implements TransactionTokenizer.Sink {
+
+    public static final byte TYPE_OTHER = 0;
+    public static final byte TYPE_DEBIT = 1;
+    public static final byte TYPE_CREDIT = 2;
+
+    /** Epoch day of a row whose date could not be parsed. */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+    /** Epoch second of a row whose date could not be parsed. */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    /** Amount of a row whose amount could not be parsed. */
+    public static final long NO_AMOUNT = Money.INVALID;
+
+    // IMPORTANT: Adjust the patterns to EXACTLY match the date/time format in your PDF text
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy", Locale.ENGLISH);
+    private static final Log.Repeated BAD_DATE = Log.repeated("Could not parse date"); // Once per row at worst
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("h:mm a", Locale.ENGLISH);
+
+    private int size;
+
+    // Typed columns
+    private int[] epochDays = new int[16]; // int reaches beyond year 5,000,000 and halves the column; seconds need long
+    private long[] epochSeconds = new long[16];
+    private long[] amountsMinor = new long[16];
+    private byte[] types = new byte[16];
+
+    // Dictionary-encoded columns
+    private int[] dateCodes = new int[16];
+    private int[] timeCodes = new int[16];
+    private int[] descriptionCodes = new int[16];
+    private int[] accountCodes = new int[16];
+    private int[] currencyCodes = new int[16];
+    private int[] amountCodes = new int[16];
+
+    // Unique per row, nothing to share
+    private String[] transactionIds = new String[16];
+    private String[] utrs = new String[16];
+
+    private StringDictionary dates = new StringDictionary();
+    private StringDictionary times = new StringDictionary();
+    private StringDictionary descriptions = new StringDictionary();
+    private StringDictionary accounts = new StringDictionary();
+    private StringDictionary currencies = new StringDictionary();
+    private StringDictionary amounts = new StringDictionary();
+    private Map<Integer, String> otherTypes = new HashMap<>(); // Raw type where it is not plain "Debit"/"Credit"
+
+    // Parsed values per dictionary code, so each distinct date/time/amount string is parsed once
+    private int[] epochDayByDateCode = new int[16];
+    private int[] secondOfDayByTimeCode = new int[16];
+    private long[] minorByAmountCode = new long[16];
+    private int parsedDateCount;
+    private int parsedTimeCount;
+    private int parsedAmountCount;
+
+    @Override
+    public void record(String date, String time, String description, String transactionId, String utr,
+                       String account, String type, String currency, String amount) {
+        ensureCapacity(size + 1);
+        int row = size++;
+
+        dateCodes[row] = dates.encode(date);
+        timeCodes[row] = times.encode(time);
+        descriptionCodes[row] = descriptions.encode(description);
+        accountCodes[row] = accounts.encode(account);
+        currencyCodes[row] = currencies.encode(currency);
+        amountCodes[row] = amounts.encode(amount);
+        transactionIds[row] = transactionId;
+        utrs[row] = utr;
+
+        if ("Debit".equalsIgnoreCase(type)) {
+            types[row] = TYPE_DEBIT;
+        } else if ("Credit".equalsIgnoreCase(type)) {
+            types[row] = TYPE_CREDIT;
+        } else {
+            types[row] = TYPE_OTHER;
+        }
+        if (types[row] == TYPE_OTHER || !type.equals(types[row] == TYPE_DEBIT ? "Debit" : "Credit")) {
+            otherTypes.put(row, type); // Keep anything but the usual spelling exactly as parsed
+        }
+
+        int epochDay = epochDayOf(dateCodes[row]);
+        epochDays[row] = epochDay;
+        int secondOfDay = secondOfDayOf(timeCodes[row]);
+        epochSeconds[row] = epochDay == NO_DATE ? NO_TIMESTAMP : epochDay * 86_400L + Math.max(secondOfDay, 0);
+        amountsMinor[row] = minorOf(amountCodes[row]);
+    }
+
+    /**
+     * Appends the rows of another table, e.g. when several statements are merged.
+     */
+    public void appendAll(TransactionTable other) {
+        for (int row = 0; row < other.size; row++) {
+            other.copyRowTo(row, this);
+        }
+    }
+
+    /**
+     * Appends one row of this table to {@code target}.
+     */
+    public void copyRowTo(int row, TransactionTokenizer.Sink target) {
+        target.record(getDate(row), getTime(row), getDescription(row), transactionIds[row], utrs[row],
+                getAccount(row), getType(row), getCurrency(row), getAmountText(row));
+    }
+
+    /**
+     * Appends a record that was built as a map of column values.
+     */
+    public void append(TransactionRecord record) {
+        record(record.getValue(App.COL_DATE), record.getValue(App.COL_TIME), record.getValue(App.COL_DESCRIPTION),
+                record.getValue(App.COL_TRANSACTION_ID), record.getValue(App.COL_UTR), record.getValue(App.COL_ACCOUNT),
+                record.getValue(App.COL_TYPE), record.getValue(App.COL_CURRENCY), record.getValue(App.COL_AMOUNT));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // --- Typed accessors ---
+
+    /**
+     * @return The transaction date as days since 1970-01-01, or {@link #NO_DATE}.
+     */
+    public int getEpochDay(int row) {
+        return epochDays[checkRow(row)];
+    }
+
+    /**
+     * @return The transaction date and time as seconds since 1970-01-01T00:00 (local), or {@link #NO_TIMESTAMP}.
+     */
+    public long getEpochSecond(int row) {
+        return epochSeconds[checkRow(row)];
+    }
+
+    /**
+     * @return The amount in minor units (paise), or {@link #NO_AMOUNT}.
+     */
+    public long getAmountMinor(int row) {
+        return amountsMinor[checkRow(row)];
+    }
+
+    /**
+     * @return {@link #TYPE_DEBIT}, {@link #TYPE_CREDIT} or {@link #TYPE_OTHER}.
+     */
+    public byte getTypeFlag(int row) {
+        return types[checkRow(row)];
+    }
+
+    public boolean isDebit(int row) {
+        return types[checkRow(row)] == TYPE_DEBIT;
+    }
+
+    public int getDescriptionCode(int row) {
+        return descriptionCodes[checkRow(row)];
+    }
+
+    public StringDictionary getDescriptionDictionary() {
+        return descriptions;
+    }
+
+    // --- Text accessors, the values exactly as parsed ---
+
+    public String getDate(int row) {
+        return dates.decode(dateCodes[checkRow(row)]);
+    }
+
+    public String getTime(int row) {
+        return times.decode(timeCodes[checkRow(row)]);
+    }
+
+    public String getDescription(int row) {
+        return descriptions.decode(descriptionCodes[checkRow(row)]);
+    }
+
+    public String getTransactionId(int row) {
+        return transactionIds[checkRow(row)];
+    }
+
+    public String getUtr(int row) {
+        return utrs[checkRow(row)];
+    }
+
+    public String getAccount(int row) {
+        return accounts.decode(accountCodes[checkRow(row)]);
+    }
+
+    public String getType(int row) {
+        if (otherTypes.containsKey(checkRow(row))) {
+            return otherTypes.get(row);
+        }
+        return types[row] == TYPE_DEBIT ? "Debit" : "Credit";
+    }
+
+    public String getCurrency(int row) {
+        return currencies.decode(currencyCodes[checkRow(row)]);
+    }
+
+    public String getAmountText(int row) {
+        return amounts.decode(amountCodes[checkRow(row)]);
+    }
+
+    /**
+     * Gets the value of a column by name, as {@link TransactionRecord#getValue(String)} does.
+     * @return The value, or null if the column does not exist.
+     */
+    public String getValue(int row, String columnName) {
+        switch (columnName) {
+            case App.COL_DATE: return getDate(row);
+            case App.COL_TIME: return getTime(row);
+            case App.COL_DESCRIPTION: return getDescription(row);
+            case App.COL_TRANSACTION_ID: return getTransactionId(row);
+            case App.COL_UTR: return getUtr(row);
+            case App.COL_ACCOUNT: return getAccount(row);
+            case App.COL_TYPE: return getType(row);
+            case App.COL_CURRENCY: return getCurrency(row);
+            case App.COL_AMOUNT: return getAmountText(row);
+            default: return null;
+        }
+    }
+
+    // --- Row views ---
+
+    /**
+     * @return A lightweight view of one row; nothing is copied.
+     */
+    public TransactionRecord getRow(int row) {
+        return new Row(checkRow(row));
+    }
+
+    /**
+     * @return A read-only list view over all rows.
+     */
+    public List<TransactionRecord> asRecords() {
+        return new AbstractList<TransactionRecord>() {
+            @Override
+            public TransactionRecord get(int index) {
+                return getRow(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private class Row extends TransactionRecord {
+        private final int row;
+
+        Row(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public String getValue(String columnName) {
+            return TransactionTable.this.getValue(row, columnName);
+        }
+
+        @Override
+        public Map<String, String> getData() {
+            Map<String, String> data = new LinkedHashMap<>();
+            for (String column : App.TRANSACTION_COLUMNS) {
+                data.put(column, getValue(column));
+            }
+            return data;
+        }
+    }
+
+    // --- Binary form, used by StatementCache ---
+
+    /**
+     * Writes the columns as they are stored, so {@link #readFrom(ByteBuffer)} can restore them without re-parsing.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (StringDictionary dictionary : new StringDictionary[]{dates, times, descriptions, accounts, currencies, amounts}) {
+            dictionary.writeTo(out);
+        }
+        BinaryFormat.writeInts(out, epochDays, size);
+        BinaryFormat.writeLongs(out, epochSeconds, size);
+        BinaryFormat.writeLongs(out, amountsMinor, size);
+        out.write(types, 0, size);
+        for (int[] codes : new int[][]{dateCodes, timeCodes, descriptionCodes, accountCodes, currencyCodes, amountCodes}) {
+            BinaryFormat.writeInts(out, codes, size);
+        }
+        for (int row = 0; row < size; row++) {
+            BinaryFormat.writeString(out, transactionIds[row]);
+            BinaryFormat.writeString(out, utrs[row]);
+        }
+        out.writeInt(otherTypes.size());
+        for (Map.Entry<Integer, String> entry : otherTypes.entrySet()) {
+            out.writeInt(entry.getKey());
+            BinaryFormat.writeString(out, entry.getValue());
+        }
+        BinaryFormat.writeInts(out, epochDayByDateCode, parsedDateCount);
+        BinaryFormat.writeInts(out, secondOfDayByTimeCode, parsedTimeCount);
+        BinaryFormat.writeLongs(out, minorByAmountCode, parsedAmountCount);
+    }
+
+    /**
+     * Restores a table written by {@link #writeTo(DataOutputStream)}.
+     */
+    static TransactionTable readFrom(ByteBuffer in) {
+        TransactionTable table = new TransactionTable();
+        int size = in.getInt();
+        int capacity = Math.max(size, 16);
+        table.dates = StringDictionary.readFrom(in);
+        table.times = StringDictionary.readFrom(in);
+        table.descriptions = StringDictionary.readFrom(in);
+        table.accounts = StringDictionary.readFrom(in);
+        table.currencies = StringDictionary.readFrom(in);
+        table.amounts = StringDictionary.readFrom(in);
+        table.epochDays = BinaryFormat.readInts(in, size, capacity);
+        table.epochSeconds = BinaryFormat.readLongs(in, size, capacity);
+        table.amountsMinor = BinaryFormat.readLongs(in, size, capacity);
+        table.types = BinaryFormat.readBytes(in, size, capacity);
+        table.dateCodes = BinaryFormat.readInts(in, size, capacity);
+        table.timeCodes = BinaryFormat.readInts(in, size, capacity);
+        table.descriptionCodes = BinaryFormat.readInts(in, size, capacity);
+        table.accountCodes = BinaryFormat.readInts(in, size, capacity);
+        table.currencyCodes = BinaryFormat.readInts(in, size, capacity);
+        table.amountCodes = BinaryFormat.readInts(in, size, capacity);
+        table.transactionIds = new String[capacity];
+        table.utrs = new String[capacity];
+        for (int row = 0; row < size; row++) {
+            table.transactionIds[row] = BinaryFormat.readString(in);
+            table.utrs[row] = BinaryFormat.readString(in);
+        }
+        int otherTypeCount = in.getInt();
+        for (int i = 0; i < otherTypeCount; i++) {
+            int row = in.getInt();
+            table.otherTypes.put(row, BinaryFormat.readString(in));
+        }
+        table.parsedDateCount = table.dates.size();
+        table.epochDayByDateCode = BinaryFormat.readInts(in, table.parsedDateCount, 16);
+        table.parsedTimeCount = table.times.size();
+        table.secondOfDayByTimeCode = BinaryFormat.readInts(in, table.parsedTimeCount, 16);
+        table.parsedAmountCount = table.amounts.size();
+        table.minorByAmountCode = BinaryFormat.readLongs(in, table.parsedAmountCount, 16);
+        table.size = size;
+        return table;
+    }
+
+    // --- Parsing, once per distinct value ---
+
+    private int epochDayOf(int dateCode) {
+        if (dateCode == StringDictionary.NULL_CODE) {
+            return NO_DATE;
+        }
+        if (dateCode == parsedDateCount) {
+            // Codes are handed out in order, so this is a date string that has not been seen before
+            epochDayByDateCode = grow(epochDayByDateCode, dateCode);
+            epochDayByDateCode[parsedDateCount++] = parseEpochDay(dates.decode(dateCode));
+        }
+        return epochDayByDateCode[dateCode];
+    }
+
+    private int secondOfDayOf(int timeCode) {
+        if (timeCode == StringDictionary.NULL_CODE) {
+            return -1;
+        }
+        if (timeCode == parsedTimeCount) {
+            secondOfDayByTimeCode = grow(secondOfDayByTimeCode, timeCode);
+            secondOfDayByTimeCode[parsedTimeCount++] = parseSecondOfDay(times.decode(timeCode));
+        }
+        return secondOfDayByTimeCode[timeCode];
+    }
+
+    private long minorOf(int amountCode) {
+        if (amountCode == StringDictionary.NULL_CODE) {
+            return NO_AMOUNT;
+        }
+        if (amountCode == parsedAmountCount) {
+            if (amountCode == minorByAmountCode.length) {
+                minorByAmountCode = Arrays.copyOf(minorByAmountCode, minorByAmountCode.length * 2);
+            }
+            minorByAmountCode[parsedAmountCount++] = Money.parsePaise(amounts.decode(amountCode));
+        }
+        return minorByAmountCode[amountCode];
+    }
+
+    private static int[] grow(int[] array, int index) {
+        return index < array.length ? array : Arrays.copyOf(array, array.length * 2);
+    }
+
+    /**
+     * Parses a statement date such as "Apr 19, 2024".
+     * @return Days since 1970-01-01, or {@link #NO_DATE} if the text is not a date.
+     */
+    static int parseEpochDay(String dateString) {
+        if (dateString == null || dateString.trim().isEmpty()) {
+            return NO_DATE;
+        }
+        try {
+            // Handle potential multi-line dates if they were concatenated with space
+            dateString = dateString.replace("\n", " ").replace("\r", "");
+            return (int) LocalDate.parse(dateString.trim(), DATE_FORMATTER).toEpochDay();
+        } catch (DateTimeParseException e) {
+            BAD_DATE.warn("Could not parse date: '%s' - %s", dateString, e.getMessage());
+            return NO_DATE;
+        }
+    }
+
+    private static int parseSecondOfDay(String timeString) {
+        try {
+            return LocalTime.parse(timeString.trim(), TIME_FORMATTER).toSecondOfDay();
+        } catch (DateTimeParseException e) {
+            return -1; // The time is only used for ordering within a day
+        }
+    }
+
+    // --- Storage ---
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range for " + size + " transactions");
+        }
+        return row;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= epochDays.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, epochDays.length * 2);
+        epochDays = Arrays.copyOf(epochDays, newCapacity);
+        epochSeconds = Arrays.copyOf(epochSeconds, newCapacity);
+        amountsMinor = Arrays.copyOf(amountsMinor, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        dateCodes = Arrays.copyOf(dateCodes, newCapacity);
+        timeCodes = Arrays.copyOf(timeCodes, newCapacity);
+        descriptionCodes = Arrays.copyOf(descriptionCodes, newCapacity);
+        accountCodes = Arrays.copyOf(accountCodes, newCapacity);
+        currencyCodes = Arrays.copyOf(currencyCodes, newCapacity);
+        amountCodes = Arrays.copyOf(amountCodes, newCapacity);
+        transactionIds = Arrays.copyOf(transactionIds, newCapacity);
+        utrs = Arrays.copyOf(utrs, newCapacity);
+    }
+}
@@ -0,0 +1,543 @@
+import java.util.Arrays;
+
+/**
+ * Single-pass tokenizer for the transaction text of a PhonePe statement.
+ * Characters are consumed once, front to back, and every completed line drives a small state
+ * machine (date, time, description, transaction ID, UTR, account, amount). Page footers and
+ * repeated column headers are dropped inline, so no intermediate copies of the text or
+ * {@code String[]} line arrays are built. Text may be fed in arbitrary chunks, which lets the
+ * streaming and parallel readers pass one window of pages at a time.
+ *
+ * The records produced are the same as the original line-array parser in {@code App}, including
+ * wrapped dates, descriptions and amounts and wallet transactions without a UTR line.
+ */
+public class TransactionTokenizer {
+
+    /**
+     * Receives each parsed record.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void record(String date, String time, String description, String transactionId, String utr,
+                    String account, String type, String currency, String amount);
+    }
+
+    private enum State {
+        OWNER, DATE_RANGE, COLUMNS,              // Statement header lines
+        DATE, DATE_WRAP, TIME, DESCRIPTION, DESCRIPTION_WRAP,
+        TRANSACTION_ID, UTR, ACCOUNT, AMOUNT, AMOUNT_WRAP,
+        SKIP,                                    // Skipping the rest of a malformed record
+        DONE                                     // End-of-statement marker seen
+    }
+
+    private static final String SYSTEM_GENERATED_LINE = "This is a system generated statement. For any queries, contact us at .https://support.phonepe.com/statement";
+    private static final String END_OF_STATEMENT = "This is an automatically generated statement";
+    private static final String COLUMN_HEADER = "Date Transaction Details Type Amount";
+    private static final String PAGE_FOOTER_START = "Page ";
+    private static final String PAGE_FOOTER_MIDDLE = " of ";
+    private static final String TRANSACTION_ID_PREFIX = "Transaction ID ";
+    private static final String UTR_PREFIX = "UTR No";
+    private static final String UTR_VALUE_PREFIX = "UTR No. ";
+    private static final String WALLET_UTR = "Wallets txn has no UTR";
+    // Lines a record occupies when its date line cannot be checked for a wrap
+    private static final int LINES_PER_TRANSACTION = 7;
+    // One of each per malformed record at worst, so only the first few are written
+    private static final Log.Repeated BAD_RECORD = Log.repeated("Error parsing transaction chunk");
+    private static final Log.Repeated BAD_AMOUNT = Log.repeated("Could not parse amount line");
+    private static final Log.Repeated BAD_FIELD = Log.repeated("Could not find ':' or value");
+
+    private final Sink sink;
+    private State state;
+
+    // Current line being assembled
+    private char[] line = new char[256];
+    private int lineLength;
+    private boolean pendingCarriageReturn;
+    private int pendingEmptyLines; // Empty lines are only real if more text follows them
+    private long lineNumber;
+
+    // Header
+    private String ownerLine;
+    private String dateRangeLine;
+    private String columnsLine;
+
+    // Record under construction
+    private long recordStartLine;
+    private String date;
+    private String time;
+    private String description;
+    private String transactionIdLine;
+    private String utrLine;
+    private String accountLine;
+    private String amountLine;
+    private int linesToSkip;
+
+    private int recordCount;
+    private int errorCount;
+
+    /**
+     * Constructor for TransactionTokenizer.
+     * @param sink Receives the parsed records.
+     * @param withHeader True if the text starts with the owner, date range and column header lines.
+     */
+    public TransactionTokenizer(Sink sink, boolean withHeader) {
+        this.sink = sink;
+        this.state = withHeader ? State.OWNER : State.DATE;
+    }
+
+    /**
+     * Feeds the next piece of text.
+     * @return False once the end-of-statement marker has been seen and further text is ignored.
+     */
+    public boolean feed(CharSequence text) {
+        for (int i = 0, n = text.length(); i < n && state != State.DONE; i++) {
+            consume(text.charAt(i));
+        }
+        return state != State.DONE;
+    }
+
+    /**
+     * Feeds the next piece of text from a character buffer, e.g. from a {@link java.io.Writer}.
+     * @return False once the end-of-statement marker has been seen and further text is ignored.
+     */
+    public boolean feed(char[] buffer, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end && state != State.DONE; i++) {
+            consume(buffer[i]);
+        }
+        return state != State.DONE;
+    }
+
+    /**
+     * Signals the end of the text. A record still waiting for its final line is dropped, as are
+     * trailing empty lines.
+     */
+    public void finish() {
+        if (state == State.COLUMNS) {
+            endHeaderLine(); // The column line may be the last one, without a line break after it
+        } else if (isHeaderState()) {
+            return; // Header incomplete, there is no statement to parse
+        } else if (lineLength > 0) {
+            endLine(); // Last line without a line break after it
+        }
+        if (state != State.DATE && state != State.SKIP && state != State.DONE) {
+            errorCount++;
+            BAD_RECORD.error("Incomplete transaction data found starting near line %d. Skipping chunk.[[%s]]", recordStartLine, date);
+        }
+        pendingEmptyLines = 0;
+        lineLength = 0;
+        pendingCarriageReturn = false;
+    }
+
+    private void consume(char c) {
+        if (pendingCarriageReturn) {
+            pendingCarriageReturn = false;
+            if (c == '\n') {
+                return; // Second half of \r\n
+            }
+        }
+        switch (c) {
+            case '\r':
+                pendingCarriageReturn = true;
+                endLine();
+                break;
+            case '\n':
+            case '\u000B':
+            case '\f':
+            case '\u0085':
+            case '\u2028':
+            case '\u2029':
+                endLine();
+                break;
+            default:
+                if (lineLength == line.length) {
+                    line = Arrays.copyOf(line, line.length * 2);
+                }
+                line[lineLength++] = c;
+        }
+    }
+
+    private void endLine() {
+        lineNumber++;
+        if (isHeaderState()) {
+            endHeaderLine();
+            return;
+        }
+        removePageFooters();
+        removeColumnHeaders();
+        if (lineLength == 0) {
+            pendingEmptyLines++;
+            return;
+        }
+        for (; pendingEmptyLines > 0 && state != State.DONE; pendingEmptyLines--) {
+            onLine(0);
+        }
+        pendingEmptyLines = 0;
+        if (state != State.DONE) {
+            onLine(lineLength);
+        }
+        lineLength = 0;
+    }
+
+    private boolean isHeaderState() {
+        return state == State.OWNER || state == State.DATE_RANGE || state == State.COLUMNS;
+    }
+
+    private void endHeaderLine() {
+        String text = new String(line, 0, lineLength);
+        lineLength = 0;
+        switch (state) {
+            case OWNER:
+                ownerLine = text;
+                state = State.DATE_RANGE;
+                break;
+            case DATE_RANGE:
+                dateRangeLine = text;
+                state = State.COLUMNS;
+                break;
+            default:
+                columnsLine = text;
+                // Without column names there is nothing to map the records to
+                state = App.extractColumnNames(columnsLine).length > 0 ? State.DATE : State.DONE;
+        }
+    }
+
+    /**
+     * Advances the state machine by one line held in {@code line[0..length)}.
+     */
+    private void onLine(int length) {
+        switch (state) {
+            case DATE:
+                if (isBlank(length) || matches(length, SYSTEM_GENERATED_LINE)) {
+                    return;
+                }
+                if (startsWith(length, END_OF_STATEMENT)) {
+                    state = State.DONE;
+                    return;
+                }
+                recordStartLine = lineNumber;
+                date = trimmed(length);
+                state = State.DATE_WRAP;
+                return;
+            case DATE_WRAP:
+                if (length < 3) {
+                    errorCount++;
+                    BAD_RECORD.error("Error parsing transaction chunk starting near line %d: time line too short", recordStartLine);
+                    linesToSkip = LINES_PER_TRANSACTION - 2;
+                    state = State.SKIP;
+                } else if (line[2] != ':') {
+                    date = date + new String(line, 0, length); // Date wrapped onto a second line
+                    state = State.TIME;
+                } else {
+                    time = trimmed(length);
+                    state = State.DESCRIPTION;
+                }
+                return;
+            case TIME:
+                time = trimmed(length);
+                state = State.DESCRIPTION;
+                return;
+            case DESCRIPTION:
+                description = trimmed(length);
+                state = State.DESCRIPTION_WRAP;
+                return;
+            case DESCRIPTION_WRAP:
+                if (!startsWith(length, TRANSACTION_ID_PREFIX)) {
+                    description = description + " " + new String(line, 0, length); // Description wrapped
+                    state = State.TRANSACTION_ID;
+                } else {
+                    transactionIdLine = trimmed(length);
+                    state = State.UTR;
+                }
+                return;
+            case TRANSACTION_ID:
+                transactionIdLine = trimmed(length);
+                state = State.UTR;
+                return;
+            case UTR:
+                String utrOrAccount = trimmed(length);
+                if (utrOrAccount.startsWith(UTR_PREFIX)) {
+                    utrLine = utrOrAccount;
+                    state = State.ACCOUNT;
+                } else {
+                    // Wallet transactions have no UTR line, this is already the account line
+                    utrLine = WALLET_UTR;
+                    accountLine = utrOrAccount;
+                    state = State.AMOUNT;
+                }
+                return;
+            case ACCOUNT:
+                accountLine = trimmed(length);
+                state = State.AMOUNT;
+                return;
+            case AMOUNT:
+                amountLine = trimmed(length);
+                state = State.AMOUNT_WRAP;
+                return;
+            case AMOUNT_WRAP:
+                if (contains(length, '.')) {
+                    amountLine = amountLine + " " + new String(line, 0, length); // Amount wrapped
+                    emitRecord();
+                    state = State.DATE;
+                } else {
+                    emitRecord();
+                    state = State.DATE;
+                    onLine(length); // This line already starts the next record
+                }
+                return;
+            case SKIP:
+                if (--linesToSkip == 0) {
+                    state = State.DATE;
+                }
+                return;
+            default:
+                // DONE or header states never get here
+        }
+    }
+
+    private void emitRecord() {
+        try {
+            String transactionId = extractTransactionId(transactionIdLine);
+            String utr = utrLine.startsWith(UTR_PREFIX) ? extractUtrNo(utrLine) : utrLine;
+            String account = extractAccount(accountLine);
+
+            // Amount line, e.g. "Debit INR 550.00"
+            String type;
+            String currency;
+            String amount;
+            String[] amountParts = splitInThree(amountLine);
+            if (amountParts != null) {
+                type = amountParts[0];
+                currency = amountParts[1];
+                amount = amountParts[2];
+            } else {
+                BAD_AMOUNT.warn("Could not parse amount line format: '%s' at line %d", amountLine, lineNumber);
+                type = "Unknown";
+                amount = amountLine; // Store the whole line if parsing fails
+                currency = "Unknown";
+            }
+
+            sink.record(date, time, description,
+                    transactionId != null ? transactionId : transactionIdLine,
+                    utr != null ? utr : utrLine,
+                    account, type, currency, amount);
+            recordCount++;
+        } catch (RuntimeException e) {
+            errorCount++;
+            BAD_RECORD.error("Error parsing transaction chunk starting near line %d: %s", recordStartLine, e.getMessage());
+        }
+    }
+
+    // --- Field helpers ---
+
+    static String extractTransactionId(String text) {
+        if (text.indexOf(':') > 0) {
+            return extractValueAfterColon(text);
+        }
+        return text.substring(TRANSACTION_ID_PREFIX.length());
+    }
+
+    static String extractUtrNo(String text) {
+        if (text.indexOf(':') > 0) {
+            return extractValueAfterColon(text);
+        }
+        return text.substring(UTR_VALUE_PREFIX.length());
+    }
+
+    private static String extractValueAfterColon(String text) {
+        int colonIndex = text.indexOf(':');
+        if (colonIndex != -1 && colonIndex < text.length() - 1) {
+            return text.substring(colonIndex + 1).trim();
+        }
+        BAD_FIELD.warn("Could not find ':' or value after it in line: '%s'", text);
+        return null;
+    }
+
+    /**
+     * Returns everything after the second whitespace run, e.g. "Paid by XXXX1234" -> "XXXX1234".
+     */
+    static String extractAccount(String text) {
+        int i = skipToWhitespace(text, 0);
+        i = skipWhitespace(text, i);
+        i = skipToWhitespace(text, i);
+        int start = skipWhitespace(text, i);
+        if (i == text.length() || start == text.length()) {
+            throw new IllegalArgumentException("Account line has fewer than three parts: '" + text + "'");
+        }
+        return text.substring(start);
+    }
+
+    /**
+     * Splits on whitespace runs like {@code split("\\s+")} and returns the parts only if there are exactly three.
+     */
+    static String[] splitInThree(String text) {
+        String[] parts = new String[3];
+        int count = 0;
+        int n = text.length();
+        int i = 0;
+        if (n > 0 && isRegexSpace(text.charAt(0))) {
+            parts[count++] = ""; // A leading separator yields a leading empty part
+            i = skipWhitespace(text, 0);
+        }
+        while (i < n) {
+            int end = skipToWhitespace(text, i);
+            if (count == 3) {
+                return null;
+            }
+            parts[count++] = text.substring(i, end);
+            i = skipWhitespace(text, end);
+        }
+        if (count == 1 && parts[0].isEmpty()) {
+            count = 0; // Only whitespace, which split() turns into no parts at all
+        }
+        return count == 3 ? parts : null;
+    }
+
+    private static int skipToWhitespace(String text, int i) {
+        while (i < text.length() && !isRegexSpace(text.charAt(i))) i++;
+        return i;
+    }
+
+    private static int skipWhitespace(String text, int i) {
+        while (i < text.length() && isRegexSpace(text.charAt(i))) i++;
+        return i;
+    }
+
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // --- Line buffer helpers ---
+
+    private String trimmed(int length) {
+        int start = 0;
+        int end = length;
+        while (start < end && line[start] <= ' ') start++;
+        while (end > start && line[end - 1] <= ' ') end--;
+        return new String(line, start, end - start);
+    }
+
+    private boolean isBlank(int length) {
+        for (int i = 0; i < length; i++) {
+            if (!Character.isWhitespace(line[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(int length, String prefix) {
+        return regionMatches(0, length, prefix);
+    }
+
+    private boolean matches(int length, String text) {
+        return length == text.length() && regionMatches(0, length, text);
+    }
+
+    private boolean regionMatches(int offset, int length, String text) {
+        if (offset + text.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (line[offset + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean contains(int length, char c) {
+        for (int i = 0; i < length; i++) {
+            if (line[i] == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes "Page N of M" footers from the current line in place.
+     */
+    private void removePageFooters() {
+        int write = 0;
+        int read = 0;
+        while (read < lineLength) {
+            int footerLength = line[read] == 'P' ? pageFooterLength(read) : 0;
+            if (footerLength > 0) {
+                read += footerLength;
+            } else {
+                line[write++] = line[read++];
+            }
+        }
+        lineLength = write;
+    }
+
+    private int pageFooterLength(int start) {
+        if (!regionMatches(start, lineLength, PAGE_FOOTER_START)) {
+            return 0;
+        }
+        int i = skipDigits(start + PAGE_FOOTER_START.length());
+        if (i == start + PAGE_FOOTER_START.length() || !regionMatches(i, lineLength, PAGE_FOOTER_MIDDLE)) {
+            return 0;
+        }
+        int digitsStart = i + PAGE_FOOTER_MIDDLE.length();
+        int end = skipDigits(digitsStart);
+        return end > digitsStart ? end - start : 0;
+    }
+
+    private int skipDigits(int i) {
+        while (i < lineLength && line[i] >= '0' && line[i] <= '9') i++;
+        return i;
+    }
+
+    /**
+     * Removes the column header that is repeated at the top of every page from the current line in place.
+     */
+    private void removeColumnHeaders() {
+        int write = 0;
+        int read = 0;
+        while (read < lineLength) {
+            if (line[read] == 'D' && regionMatches(read, lineLength, COLUMN_HEADER)) {
+                read += COLUMN_HEADER.length();
+            } else {
+                line[write++] = line[read++];
+            }
+        }
+        lineLength = write;
+    }
+
+    // --- Results ---
+
+    /**
+     * @return True once the owner, date range and column lines have all been read.
+     */
+    public boolean isHeaderComplete() {
+        return columnsLine != null;
+    }
+
+    public String getOwnerLine() {
+        return ownerLine;
+    }
+
+    public String getDateRangeLine() {
+        return dateRangeLine;
+    }
+
+    public String getColumnsLine() {
+        return columnsLine;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return Number of records that were dropped because they could not be parsed.
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public long getLineCount() {
+        return lineNumber;
+    }
+}
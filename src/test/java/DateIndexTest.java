@@ -0,0 +1,45 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Extending a {@link DateIndex} with new rows must give the same index as building it from scratch.
+ */
+class DateIndexTest {
+
+    private static final DateTimeFormatter STATEMENT_DATE = DateTimeFormatter.ofPattern("MMM dd, yyyy", Locale.ENGLISH);
+
+    @Test
+    void extendMatchesBuild() {
+        Random random = new Random(7);
+        TransactionTable table = new TransactionTable();
+        DateIndex index = DateIndex.build(table);
+        int indexed = 0;
+        for (int batch = 0; batch < 20; batch++) {
+            // Mostly later than what is there, some overlapping days, some without a date
+            LocalDate base = LocalDate.of(2024, 1, 1).plusDays(batch * 10L);
+            for (int i = random.nextInt(50); i > 0; i--) {
+                String date = random.nextInt(10) == 0 ? "not a date" : STATEMENT_DATE.format(base.plusDays(random.nextInt(30) - 10));
+                table.record(date, "10:00 AM", "Paid to Shop", "T" + table.size(), "U" + table.size(),
+                        "XXXXXX1234", "Debit", "INR", "10.00");
+            }
+            index = index.extend(table, indexed);
+            indexed = table.size();
+
+            DateIndex built = DateIndex.build(table);
+            assertArrayEquals(built.getRows(), index.getRows(), "after batch " + batch);
+            assertEquals(built.size(), index.size());
+            for (int position = 0; position < built.size(); position++) {
+                assertEquals(built.getDay(position), index.getDay(position));
+            }
+        }
+        assertTrue(index.size() > 0 && index.size() < table.size(), "dated and undated rows");
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The original line-array transaction parser from {@code App}, kept unchanged (apart from its
+ * console output) as the reference that {@link TransactionTokenizer} must agree with.
+ */
+final class LegacyStatementParser {
+
+    private static final int LINES_PER_TRANSACTION = 7;
+
+    private LegacyStatementParser() {
+    }
+
+    /**
+     * Parses the transaction block (the text after the three header lines) into one map of column values per record.
+     */
+    static List<Map<String, String>> extractTransactions(String transactionsInText) {
+        List<Map<String, String>> parsedTransactions = new ArrayList<>();
+        if (transactionsInText == null || transactionsInText.trim().isEmpty()) {
+            return parsedTransactions;
+        }
+
+        transactionsInText = transactionsInText.replaceAll("Page \\d+ of \\d+", "");
+        transactionsInText = transactionsInText.replaceAll("Date Transaction Details Type Amount", "");
+
+        String[] lines = transactionsInText.split("\\R");
+
+        for (int i = 0; (i + LINES_PER_TRANSACTION) <= lines.length; i += LINES_PER_TRANSACTION) {
+            Map<String, String> rowData = new HashMap<>();
+
+            if (lines[i].isBlank() || lines[i].equals("This is a system generated statement. For any queries, contact us at .https://support.phonepe.com/statement")) {
+                i -= (LINES_PER_TRANSACTION - 1);
+                continue;
+            }
+
+            if (lines[i].startsWith("This is an automatically generated statement"))
+                break;
+
+            try {
+                String date = lines[i].trim();
+                if (lines[i + 1].charAt(2) != ':') {
+                    date += lines[i + 1];
+                    i++;
+                }
+                String time = lines[i + 1].trim();
+                String description = lines[i + 2].trim();
+                if (!lines[i + 3].startsWith("Transaction ID ")) {
+                    description += " " + lines[i + 3];
+                    i++;
+                }
+                String txnIdLine = lines[i + 3].trim();
+                String utrLine = lines[i + 4].trim();
+                if (!utrLine.startsWith("UTR No")) {
+                    utrLine = "Wallets txn has no UTR";
+                    i--;
+                }
+                String accountLine = lines[i + 5].trim();
+                String amountLine = lines[i + 6].trim();
+                if (lines[i + 7].contains(".")) {
+                    amountLine = amountLine + " " + lines[i + 7];
+                    i = i + 1;
+                }
+
+                String txnId = extractTransactionId(txnIdLine);
+                String utr = utrLine.startsWith("UTR No") ? extractUtrNo(utrLine) : utrLine;
+                String account = accountLine.split("\\s+", 3)[2];
+
+                String[] amountParts = amountLine.split("\\s+");
+                String type;
+                String amount;
+                String currency;
+                if (amountParts.length == 3) {
+                    type = amountParts[0];
+                    currency = amountParts[1];
+                    amount = amountParts[2];
+                } else {
+                    type = "Unknown";
+                    amount = amountLine;
+                    currency = "Unknown";
+                }
+
+                rowData.put(App.COL_DATE, date);
+                rowData.put(App.COL_TIME, time);
+                rowData.put(App.COL_DESCRIPTION, description);
+                rowData.put(App.COL_TRANSACTION_ID, txnId != null ? txnId : txnIdLine);
+                rowData.put(App.COL_UTR, utr != null ? utr : utrLine);
+                rowData.put(App.COL_ACCOUNT, account != null ? account : accountLine);
+                rowData.put(App.COL_TYPE, type);
+                rowData.put(App.COL_CURRENCY, currency);
+                rowData.put(App.COL_AMOUNT, amount);
+                parsedTransactions.add(rowData);
+            } catch (RuntimeException e) {
+                // Chunk shorter than expected or malformed, skipped as before
+            }
+        }
+        return parsedTransactions;
+    }
+
+    private static String extractTransactionId(String line) {
+        if (line.indexOf(':') > 0) {
+            return extractValueAfterColon(line);
+        }
+        return line.substring("Transaction ID ".length());
+    }
+
+    private static String extractUtrNo(String line) {
+        if (line.indexOf(':') > 0) {
+            return extractValueAfterColon(line);
+        }
+        return line.substring("UTR No. ".length());
+    }
+
+    private static String extractValueAfterColon(String line) {
+        int colonIndex = line.indexOf(':');
+        if (colonIndex != -1 && colonIndex < line.length() - 1) {
+            return line.substring(colonIndex + 1).trim();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A flush must report what a {@link Log.Repeated} handle suppressed without opening its window again.
+ */
+class LogTest {
+
+    private static final int REPEAT_LIMIT = Integer.getInteger("tracker.logRepeatLimit", 5);
+
+    @Test
+    void flushDoesNotResetRepeatWindow() {
+        Log.Repeated repeated = Log.repeated("log test");
+        long suppressedBefore = Metrics.counter("log.suppressed").get();
+        PrintStream stderr = System.err;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        Log.flush();
+        System.setErr(new PrintStream(captured, true, StandardCharsets.UTF_8));
+        try {
+            for (int flush = 0; flush < 3; flush++) {
+                for (int i = 0; i < 20; i++) {
+                    repeated.warn("Repeated message %d", flush * 20 + i);
+                }
+                Log.flush();
+            }
+        } finally {
+            System.setErr(stderr);
+        }
+
+        String output = captured.toString(StandardCharsets.UTF_8);
+        assertEquals(REPEAT_LIMIT, output.split("Warning: Repeated message", -1).length - 1, output);
+        assertTrue(output.contains("Warning: " + (20 - REPEAT_LIMIT) + " more 'log test' message(s) suppressed."), output);
+        assertEquals(2, output.split("Warning: 20 more 'log test' message\\(s\\) suppressed\\.", -1).length - 1, output);
+        assertEquals(60 - REPEAT_LIMIT, Metrics.counter("log.suppressed").get() - suppressedBefore);
+    }
+}
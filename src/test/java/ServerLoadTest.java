@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for {@link SpendingServer}: starts a server over a generated statement (or targets a
+ * running one with {@code --url}) and keeps {@code --clients} concurrent clients busy, each sending
+ * its next request as soon as the previous answer arrives. The requests are a random mix of
+ * summaries, date-range summaries with a random top-N, category totals and info. After a warm-up
+ * it measures for {@code --seconds} and prints requests/second and latency percentiles.
+ *
+ * Usage: {@code ServerLoadTest [--clients <n>] [--seconds <n>] [--warmup <n>] [--transactions <n>] [--url <http://host:port>]}
+ */
+public class ServerLoadTest {
+
+    private int clients = 2_000;
+    private int seconds = 20;
+    private int warmupSeconds = 5;
+    private int transactions = 100_000;
+    private String url;
+
+    private HttpClient client;
+    private LocalDate firstDate;
+    private int spanDays;
+    private volatile boolean measuring;
+    private volatile long deadline;
+    private final Metrics.Histogram latency = new Metrics.Histogram();
+    private final AtomicLong errors = new AtomicLong();
+
+    public static void main(String[] args) {
+        ServerLoadTest test = new ServerLoadTest();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--clients":
+                        test.clients = Integer.parseInt(args[++i]);
+                        break;
+                    case "--seconds":
+                        test.seconds = Integer.parseInt(args[++i]);
+                        break;
+                    case "--warmup":
+                        test.warmupSeconds = Integer.parseInt(args[++i]);
+                        break;
+                    case "--transactions":
+                        test.transactions = Integer.parseInt(args[++i]);
+                        break;
+                    case "--url":
+                        test.url = args[++i];
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            test.run();
+        } catch (IOException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Error running load test: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.exit(0);
+    }
+
+    private void run() throws IOException, InterruptedException {
+        SpendingServer server = null;
+        if (url == null) {
+            System.out.printf("Generating a statement with %,d transactions...%n", transactions);
+            StatementMetadata metadata = App.parseStatementText(new SyntheticStatement(42).text(transactions));
+            SpendingSnapshot snapshot = SpendingSnapshot.of("synthetic", metadata.getTransactionTable());
+            server = new SpendingServer(0, snapshot);
+            server.start();
+            url = "http://localhost:" + server.getPort();
+            firstDate = LocalDate.ofEpochDay(snapshot.getMinDay());
+            spanDays = snapshot.getMaxDay() - snapshot.getMinDay() + 1;
+        } else {
+            firstDate = LocalDate.now().minusYears(1);
+            spanDays = 366;
+        }
+
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        System.out.printf("%d clients against %s: %d s warm-up, %d s measured%n", clients, url, warmupSeconds, seconds);
+
+        CountDownLatch done = new CountDownLatch(clients);
+        deadline = Long.MAX_VALUE;
+        for (int i = 0; i < clients; i++) {
+            next(done);
+        }
+        Thread.sleep(warmupSeconds * 1000L);
+        measuring = true;
+        long start = System.nanoTime();
+        deadline = start + seconds * 1_000_000_000L;
+        done.await();
+        double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("Requests: %,d in %.1f s = %,.0f requests/s, %d error(s)%n",
+                latency.getCount(), elapsed, latency.getCount() / elapsed, errors.get());
+        System.out.printf("Latency: mean %.2f ms, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                latency.getMean() / 1e6, latency.getPercentile(0.50) / 1e6, latency.getPercentile(0.99) / 1e6,
+                latency.getPercentile(0.999) / 1e6, latency.getMax() / 1e6);
+        if (server != null) {
+            server.stop(0);
+            Metrics.printSummary(System.out);
+        }
+    }
+
+    /**
+     * Sends one client's next request, or counts the client as done once the deadline has passed.
+     */
+    private void next(CountDownLatch done) {
+        if (System.nanoTime() >= deadline) {
+            done.countDown();
+            return;
+        }
+        long start = System.nanoTime();
+        boolean measured = measuring;
+        client.sendAsync(randomRequest(), HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, failure) -> {
+                    if (measured) {
+                        latency.recordSince(start);
+                        if (failure != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    next(done);
+                });
+    }
+
+    private HttpRequest randomRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String path;
+        switch (random.nextInt(4)) {
+            case 0:
+                path = "/api/summary";
+                break;
+            case 1:
+                LocalDate from = firstDate.plusDays(random.nextInt(spanDays));
+                LocalDate to = from.plusDays(random.nextInt(90));
+                path = "/api/summary?from=" + from + "&to=" + to + "&top=" + (1 + random.nextInt(20));
+                break;
+            case 2:
+                path = "/api/categories?from=" + firstDate.plusDays(random.nextInt(spanDays));
+                break;
+            default:
+                path = "/api/info";
+        }
+        return HttpRequest.newBuilder(URI.create(url + path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+}
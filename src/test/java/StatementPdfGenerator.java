@@ -0,0 +1,141 @@
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.encryption.AccessPermission;
+import org.apache.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a {@link SyntheticStatement} as a PDF in the PhonePe layout, optionally password
+ * protected like the real statements, so the whole pipeline can be run at any scale without
+ * real data. Every line is drawn on its own baseline, so the text stripper returns the same
+ * lines as {@link SyntheticStatement#text(int)} (except that a line's leading spaces are lost).
+ *
+ * Usage: {@code StatementPdfGenerator <out.pdf> <transactions> [--password <pw>] [--seed <n>]
+ * [--per-page <n>] [--credit-percent <n>] [--wallet-percent <n>] [--wrapped-percent <n>]}
+ */
+public class StatementPdfGenerator {
+
+    private static final float FONT_SIZE = 7;
+    private static final float MARGIN = 36;
+
+    private final SyntheticStatement statement;
+    private String password;
+
+    /**
+     * Constructor for StatementPdfGenerator.
+     * @param statement Supplies the content and layout settings.
+     */
+    public StatementPdfGenerator(SyntheticStatement statement) {
+        this.statement = statement;
+    }
+
+    /**
+     * @param password Encrypts the PDF (AES-128) with this user password, or null for none.
+     */
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    /**
+     * Writes a statement with {@code transactions} records. Page content is cached in temp files
+     * while the document is built, so large statements do not need a large heap.
+     * @return Number of pages written.
+     */
+    public int write(File file, int transactions) throws IOException {
+        List<List<String>> pages = statement.pages(transactions);
+        try (PDDocument document = new PDDocument(IOUtils.createTempFileOnlyStreamCache())) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (List<String> lines : pages) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+                float height = page.getMediaBox().getHeight();
+                // Fit the page's lines between the margins
+                float leading = Math.min(FONT_SIZE * 1.5f, (height - 2 * MARGIN) / lines.size());
+                if (leading < FONT_SIZE + 1) {
+                    throw new IllegalArgumentException("Page has " + lines.size() + " lines, too many to fit; lower the transactions per page");
+                }
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, FONT_SIZE);
+                    content.setLeading(leading);
+                    content.newLineAtOffset(MARGIN, height - MARGIN);
+                    for (String line : lines) {
+                        content.showText(line);
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            if (password != null) {
+                StandardProtectionPolicy policy = new StandardProtectionPolicy(password, password, new AccessPermission());
+                policy.setEncryptionKeyLength(128);
+                document.protect(policy);
+            }
+            document.save(file);
+        }
+        return pages.size();
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: StatementPdfGenerator <out.pdf> <transactions> [--password <pw>] [--seed <n>] [--per-page <n>]"
+                    + " [--credit-percent <n>] [--wallet-percent <n>] [--wrapped-percent <n>]");
+            System.exit(2);
+        }
+        try {
+            File file = new File(args[0]);
+            int transactions = Integer.parseInt(args[1]);
+            long seed = 42;
+            String password = null;
+            // The seed must be known before the settings are applied
+            for (int i = 2; i < args.length; i += 2) {
+                if (args[i].equals("--seed")) {
+                    seed = Long.parseLong(args[i + 1]);
+                }
+            }
+            SyntheticStatement statement = new SyntheticStatement(seed);
+            for (int i = 2; i < args.length; i += 2) {
+                switch (args[i]) {
+                    case "--seed":
+                        break;
+                    case "--password":
+                        password = args[i + 1];
+                        break;
+                    case "--per-page":
+                        statement.setTransactionsPerPage(Integer.parseInt(args[i + 1]));
+                        break;
+                    case "--credit-percent":
+                        statement.setCreditPercent(Integer.parseInt(args[i + 1]));
+                        break;
+                    case "--wallet-percent":
+                        statement.setWalletPercent(Integer.parseInt(args[i + 1]));
+                        break;
+                    case "--wrapped-percent":
+                        statement.setWrappedDescriptionPercent(Integer.parseInt(args[i + 1]));
+                        statement.setWrappedDateAndAmountPercent(Integer.parseInt(args[i + 1]) / 4);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+
+            StatementPdfGenerator generator = new StatementPdfGenerator(statement);
+            generator.setPassword(password);
+            long start = System.nanoTime();
+            int pages = generator.write(file, transactions);
+            System.out.printf("Wrote %d transactions on %d pages to %s in %.1f s%n",
+                    transactions, pages, file, (System.nanoTime() - start) / 1_000_000_000.0);
+        } catch (IOException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Error generating statement: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end scale check: generates a large, password-protected statement PDF with
+ * {@link StatementPdfGenerator} and runs it through {@code Loader.loadPDF} -> {@code PDFTextStripper}
+ * -> {@link App#parseStatementText} (the original pipeline) and through the streaming reader the
+ * app uses. Each run must parse every record, stay above the records/second budget and under the
+ * peak-heap budget. Tagged {@code scale}, so it only runs with {@code ./gradlew scaleTest}, e.g.
+ * {@code ./gradlew scaleTest -PscaleTransactions=250000}.
+ */
+@Tag("scale")
+class StatementScaleTest {
+
+    private static final int TRANSACTIONS = Integer.getInteger("scale.transactions", 100_000);
+    private static final double MIN_RECORDS_PER_SECOND = Double.parseDouble(System.getProperty("scale.minRecordsPerSecond", "2000"));
+    private static final long MAX_HEAP_BYTES = Long.getLong("scale.maxHeapMb", 1536) << 20;
+    private static final String PASSWORD = "scale-test";
+
+    @TempDir
+    static Path directory;
+    private static File pdf;
+
+    @BeforeAll
+    static void generateStatement() throws IOException {
+        pdf = directory.resolve("scale.pdf").toFile();
+        long start = System.nanoTime();
+        StatementPdfGenerator generator = new StatementPdfGenerator(new SyntheticStatement(42));
+        generator.setPassword(PASSWORD); // Real statements are encrypted, so loading includes decryption
+        int pages = generator.write(pdf, TRANSACTIONS);
+        System.out.printf("Generated %,d transactions on %,d pages (%,d bytes) in %.1f s%n",
+                TRANSACTIONS, pages, pdf.length(), seconds(start));
+    }
+
+    @Test
+    void fullText() throws IOException {
+        measure("full text", () -> {
+            try (PDDocument document = PipelineEvents.loadPdf(pdf, PASSWORD)) {
+                String text = PipelineEvents.stripText(new PDFTextStripper(), document);
+                StatementMetadata metadata = App.parseStatementText(text);
+                return metadata != null ? metadata.getTransactionTable().size() : 0;
+            }
+        });
+    }
+
+    @Test
+    void streaming() throws IOException {
+        measure("streaming", () -> {
+            try (PDDocument document = PipelineEvents.loadPdf(pdf, PASSWORD)) {
+                StatementMetadata metadata = new StreamingStatementReader(8).read(document);
+                return metadata != null ? metadata.getTransactionTable().size() : 0;
+            }
+        });
+    }
+
+    private interface Pipeline {
+        int run() throws IOException;
+    }
+
+    private static void measure(String name, Pipeline pipeline) throws IOException {
+        System.gc();
+        resetPeakHeap();
+        long start = System.nanoTime();
+        int records = pipeline.run();
+        double seconds = seconds(start);
+        double recordsPerSecond = records / Math.max(seconds, 1e-9);
+        long peakHeap = peakHeap();
+        Log.flush();
+        System.out.printf("%s: %,d records in %.2f s (%,.0f records/s), peak heap %,d MB%n",
+                name, records, seconds, recordsPerSecond, peakHeap >> 20);
+
+        assertEquals(TRANSACTIONS, records, name + ": records parsed");
+        assertTrue(recordsPerSecond >= MIN_RECORDS_PER_SECOND,
+                String.format("%s: %,.0f records/s is below the budget of %,.0f", name, recordsPerSecond, MIN_RECORDS_PER_SECOND));
+        assertTrue(peakHeap <= MAX_HEAP_BYTES,
+                String.format("%s: peak heap %,d MB is over the budget of %,d MB", name, peakHeap >> 20, MAX_HEAP_BYTES >> 20));
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * @return Sum of the heap pools' peak usage since the last reset (an upper bound: pools peak at different times).
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,184 @@
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates fake PhonePe statement text with the same line layout as the real thing, for
+ * benchmarks and scale tests (real statements cannot be shared).
+ *
+ * Every page starts with the column header (the first page with the owner and date range lines
+ * before it) and ends with a "Page N of M" footer and the system-generated line. A record is
+ * seven lines: date, time, description, transaction ID, UTR, account and amount. Wallet records
+ * have no UTR line, and dates, descriptions and amounts can be wrapped onto a second line.
+ * The output is the same for the same seed and settings.
+ */
+public class SyntheticStatement {
+
+    static final String COLUMNS_LINE = "Date Transaction Details Type Amount";
+    static final String SYSTEM_GENERATED_LINE = "This is a system generated statement. For any queries, contact us at .https://support.phonepe.com/statement";
+    static final String END_OF_STATEMENT_LINE = "This is an automatically generated statement and does not require a signature.";
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy", Locale.ENGLISH);
+    private static final String[] MERCHANTS = {
+            "Swiggy", "Zomato", "BigBasket", "Uber India", "Jio Prepaid", "Amazon Pay", "IRCTC", "Apollo Pharmacy",
+            "Local Kirana Store", "Indian Oil", "Airtel Postpaid", "Ola Cabs", "Myntra", "Flipkart", "BookMyShow",
+            "Tata Power", "Bharat Gas", "Cult Fit", "Reliance Fresh", "DMart", "Chaayos", "Starbucks", "Blinkit",
+            "Zepto", "Nykaa", "Decathlon", "Croma", "PVR Cinemas", "Rapido", "Netflix"
+    };
+    private static final String[] LONG_MERCHANTS = {
+            "Sri Venkateshwara Enterprises and General", "Bangalore Electricity Supply Company", "Maharashtra State Electricity Distribution"
+    };
+    private static final String[] SENDERS = {"Rahul Sharma", "Priya Patel", "Amit Kumar", "Sneha Iyer", "Employer Payroll"};
+
+    private final long seed;
+    private int transactionsPerPage = 12;
+    private int creditPercent = 10;
+    private int walletPercent = 5;
+    private int wrappedDescriptionPercent = 8;
+    private int wrappedDatePercent = 2;
+    private int wrappedAmountPercent = 2;
+    private LocalDate lastDate = LocalDate.of(2024, 4, 30);
+    private int spanDays = 730;
+
+    /**
+     * Constructor for SyntheticStatement.
+     * @param seed Seed for the random choices; the same seed gives the same statement.
+     */
+    public SyntheticStatement(long seed) {
+        this.seed = seed;
+    }
+
+    public void setTransactionsPerPage(int transactionsPerPage) {
+        if (transactionsPerPage < 1) {
+            throw new IllegalArgumentException("transactionsPerPage must be at least 1, was " + transactionsPerPage);
+        }
+        this.transactionsPerPage = transactionsPerPage;
+    }
+
+    /** Percentage of records that are credits (the rest are debits). */
+    public void setCreditPercent(int creditPercent) {
+        this.creditPercent = checkPercent(creditPercent);
+    }
+
+    /** Percentage of debits paid from the wallet, which have no UTR line. */
+    public void setWalletPercent(int walletPercent) {
+        this.walletPercent = checkPercent(walletPercent);
+    }
+
+    /** Percentage of records whose description is wrapped onto a second line. */
+    public void setWrappedDescriptionPercent(int wrappedDescriptionPercent) {
+        this.wrappedDescriptionPercent = checkPercent(wrappedDescriptionPercent);
+    }
+
+    /** Percentage of records whose date or amount is wrapped onto a second line (each). */
+    public void setWrappedDateAndAmountPercent(int wrappedPercent) {
+        this.wrappedDatePercent = checkPercent(wrappedPercent);
+        this.wrappedAmountPercent = wrappedPercent;
+    }
+
+    /**
+     * Sets the date range: transactions are spread over {@code spanDays} days ending at {@code lastDate}, newest first.
+     */
+    public void setDateRange(LocalDate lastDate, int spanDays) {
+        this.lastDate = lastDate;
+        this.spanDays = Math.max(1, spanDays);
+    }
+
+    /**
+     * @return The lines of every page, as a text stripper would return them page by page.
+     */
+    public List<List<String>> pages(int transactions) {
+        Random random = new Random(seed);
+        int pageCount = Math.max(1, (transactions + transactionsPerPage - 1) / transactionsPerPage);
+        List<List<String>> pages = new ArrayList<>(pageCount);
+        int record = 0;
+        for (int page = 1; page <= pageCount; page++) {
+            List<String> lines = new ArrayList<>(transactionsPerPage * 8 + 6);
+            if (page == 1) {
+                lines.add("Transaction Statement for 98765 43210");
+                lines.add(DATE_FORMATTER.format(lastDate.minusDays(spanDays - 1)) + " - " + DATE_FORMATTER.format(lastDate));
+            }
+            lines.add(COLUMNS_LINE);
+            for (int i = 0; i < transactionsPerPage && record < transactions; i++, record++) {
+                addRecord(lines, record, transactions, random);
+            }
+            lines.add("Page " + page + " of " + pageCount);
+            lines.add(SYSTEM_GENERATED_LINE);
+            if (page == pageCount) {
+                lines.add(END_OF_STATEMENT_LINE);
+            }
+            pages.add(lines);
+        }
+        return pages;
+    }
+
+    /**
+     * @return The whole statement text, as {@code PDFTextStripper.getText} would return it.
+     */
+    public String text(int transactions) {
+        StringBuilder text = new StringBuilder(transactions * 170 + 512);
+        for (List<String> page : pages(transactions)) {
+            for (String line : page) {
+                text.append(line).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    private void addRecord(List<String> lines, int record, int transactions, Random random) {
+        // Newest first, spread evenly over the date range
+        LocalDate date = lastDate.minusDays((long) record * spanDays / Math.max(1, transactions));
+        String dateText = DATE_FORMATTER.format(date);
+        if (random.nextInt(100) < wrappedDatePercent) {
+            int comma = dateText.indexOf(',');
+            lines.add(dateText.substring(0, comma + 1));
+            lines.add(dateText.substring(comma + 1)); // " 2024", appended to the first half as is
+        } else {
+            lines.add(dateText);
+        }
+
+        int minuteOfDay = random.nextInt(24 * 60);
+        int hour = minuteOfDay / 60 % 12 == 0 ? 12 : minuteOfDay / 60 % 12;
+        lines.add(String.format(Locale.ENGLISH, "%02d:%02d %s", hour, minuteOfDay % 60, minuteOfDay < 12 * 60 ? "AM" : "PM"));
+
+        boolean credit = random.nextInt(100) < creditPercent;
+        boolean wallet = !credit && random.nextInt(100) < walletPercent;
+        if (random.nextInt(100) < wrappedDescriptionPercent) {
+            String merchant = LONG_MERCHANTS[random.nextInt(LONG_MERCHANTS.length)];
+            int split = merchant.lastIndexOf(' ');
+            lines.add("Paid to " + merchant.substring(0, split));
+            lines.add(merchant.substring(split + 1));
+        } else if (credit) {
+            lines.add("Received from " + SENDERS[random.nextInt(SENDERS.length)]);
+        } else {
+            // Skewed towards the first merchants, like real spending
+            int index = Math.min(MERCHANTS.length - 1, (int) Math.abs(random.nextGaussian() * MERCHANTS.length / 3));
+            lines.add("Paid to " + MERCHANTS[index]);
+        }
+
+        lines.add("Transaction ID T" + (240_000_000_000_000_000L + record));
+        if (!wallet) {
+            lines.add("UTR No. " + (400_000_000_000L + record));
+        }
+        lines.add(credit ? "Credited to XXXXXX5678" : wallet ? "Paid by PhonePe Wallet" : "Paid by XXXXXX1234");
+
+        long paise = credit ? 100_000L * (1 + random.nextInt(500)) : 100L * (10 + random.nextInt(5_000)) + random.nextInt(2) * 50;
+        String type = credit ? "Credit" : "Debit";
+        if (random.nextInt(100) < wrappedAmountPercent) {
+            lines.add(type + " INR");
+            lines.add(Money.format(paise));
+        } else {
+            lines.add(type + " INR " + Money.format(paise));
+        }
+    }
+
+    private static int checkPercent(int percent) {
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("Percentage must be between 0 and 100, was " + percent);
+        }
+        return percent;
+    }
+}
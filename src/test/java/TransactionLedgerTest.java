@@ -0,0 +1,33 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionLedgerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void secondOpenFailsWhileLedgerIsInUse() throws IOException {
+        Path file = directory.resolve("spending.ledger");
+        try (TransactionLedger ledger = TransactionLedger.open(file)) {
+            IOException e = assertThrows(IOException.class, () -> TransactionLedger.open(file));
+            assertTrue(e.getMessage().startsWith("Ledger in use"), e.getMessage());
+
+            TransactionTable table = new TransactionTable();
+            table.record("Apr 19, 2024", "10:30 AM", "Paid to Swiggy", "T2404191030123", "412345678901",
+                    "XXXXXX1234", "Debit", "INR", "550.00");
+            assertEquals(1, ledger.append(table));
+        }
+        // Closing releases the lock
+        try (TransactionLedger ledger = TransactionLedger.open(file)) {
+            assertEquals(1, ledger.size());
+        }
+    }
+}
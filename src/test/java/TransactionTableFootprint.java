@@ -0,0 +1,71 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the heap used per transaction by map-backed {@link TransactionRecord}s and by a
+ * {@link TransactionTable}. Run with {@code ./gradlew footprint -PfootprintRows=500000}, which uses
+ * a fixed heap for stable numbers.
+ */
+public class TransactionTableFootprint {
+
+    private static final String[] MERCHANTS = {
+            "Paid to Swiggy", "Paid to Zomato", "Paid to BigBasket", "Paid to Uber India", "Paid to Jio Prepaid",
+            "Received from Rahul", "Paid to Amazon Pay", "Paid to IRCTC", "Paid to Apollo Pharmacy", "Paid to Local Kirana"
+    };
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        long before = usedHeap();
+        List<TransactionRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, String> rowData = new HashMap<>();
+            String[] values = row(i);
+            for (int c = 0; c < App.TRANSACTION_COLUMNS.length; c++) {
+                rowData.put(App.TRANSACTION_COLUMNS[c], values[c]);
+            }
+            records.add(new TransactionRecord(rowData));
+        }
+        long mapBytes = usedHeap() - before;
+        System.out.printf("HashMap records: %,d bytes total, %.0f bytes/transaction%n", mapBytes, mapBytes / (double) count);
+        records = null;
+
+        before = usedHeap();
+        TransactionTable table = new TransactionTable();
+        for (int i = 0; i < count; i++) {
+            String[] v = row(i);
+            table.record(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[8], v[7]);
+        }
+        long tableBytes = usedHeap() - before;
+        System.out.printf("TransactionTable: %,d bytes total, %.0f bytes/transaction (%d rows)%n",
+                tableBytes, tableBytes / (double) count, table.size());
+    }
+
+    /**
+     * Synthetic row in {@link App#TRANSACTION_COLUMNS} order, with fresh strings like the parser produces.
+     */
+    private static String[] row(int i) {
+        int day = 1 + i % 28;
+        return new String[]{
+                new String("Apr " + (day < 10 ? "0" : "") + day + ", 2024"),
+                new String((1 + i % 12) + ":" + (i % 60 < 10 ? "0" : "") + (i % 60) + (i % 2 == 0 ? " AM" : " PM")),
+                new String(MERCHANTS[i % MERCHANTS.length]),
+                "T24041910" + (100_000_000L + i),
+                "4" + (10_000_000_000L + i),
+                new String("XXXXXX" + (1000 + i % 3)),
+                new String(i % 10 == 5 ? "Credit" : "Debit"),
+                new String((10 + i % 500) + ".00"),
+                new String("INR")
+        };
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
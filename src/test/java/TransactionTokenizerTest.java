@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link TransactionTokenizer} must give the same records as the original line-array parser
+ * ({@link LegacyStatementParser}), whether the text arrives at once or in windows.
+ */
+class TransactionTokenizerTest {
+
+    // Transaction block of a two-page statement, i.e. the text after the owner, date range and column lines
+    private static final String STATEMENT = String.join("\n",
+            // Plain debit
+            "Apr 19, 2024",
+            "10:30 AM",
+            "Paid to Swiggy",
+            "Transaction ID T2404191030123",
+            "UTR No. 412345678901",
+            "Paid by XXXXXX1234",
+            "Debit INR 550.00",
+            // Date wrapped over two lines
+            "Apr 18,",
+            "2024",
+            "11:05 PM",
+            "Received from John",
+            "Transaction ID T2404182305456",
+            "UTR No. 412345678902",
+            "Credited to XXXXXX1234",
+            "Credit INR 1,200.50",
+            // Wallet payment, no UTR line
+            "Apr 18, 2024",
+            "10:15 AM",
+            "Paid to Chai Point",
+            "Transaction ID T2404181015789",
+            "Paid by PhonePe Wallet",
+            "Debit INR 40.00",
+            // Page footer and repeated column header
+            "Page 1 of 2",
+            "Date Transaction Details Type Amount",
+            // Description and amount both wrapped over two lines
+            "Apr 17, 2024",
+            "12:45 PM",
+            "Paid to A very long merchant",
+            "name continued",
+            "Transaction ID : T2404171245321",
+            "UTR No : 412345678903",
+            "Paid by XXXXXX1234",
+            "Debit INR",
+            "2,500.00",
+            "Apr 16, 2024",
+            "11:59 AM",
+            "Paid to Uber India",
+            "Transaction ID T2404161159654",
+            "UTR No. 412345678904",
+            "Paid by XXXXXX1234",
+            "Debit INR 310.25",
+            "Page 2 of 2",
+            "This is a system generated statement. For any queries, contact us at .https://support.phonepe.com/statement",
+            "This is an automatically generated statement and does not need a signature",
+            // Nothing after the trailer is a transaction
+            "Apr 15, 2024",
+            "10:00 AM",
+            "Paid to Nobody",
+            "Transaction ID T2404151000000",
+            "UTR No. 412345678905",
+            "Paid by XXXXXX1234",
+            "Debit INR 1.00",
+            "");
+
+    @Test
+    void sameRecordsAsLegacyParser() {
+        List<Map<String, String>> expected = LegacyStatementParser.extractTransactions(STATEMENT);
+        assertEquals(5, expected.size());
+        assertEquals(expected, records(App.extractTransactions(STATEMENT, App.TRANSACTION_COLUMNS)));
+    }
+
+    @Test
+    void sameRecordsWithWindowsLineBreaks() {
+        String text = STATEMENT.replace("\n", "\r\n");
+        assertEquals(LegacyStatementParser.extractTransactions(text), records(App.extractTransactions(text, App.TRANSACTION_COLUMNS)));
+    }
+
+    @Test
+    void sameRecordsWhenFedInChunks() {
+        List<Map<String, String>> expected = LegacyStatementParser.extractTransactions(STATEMENT);
+        for (int chunk : new int[]{1, 3, 7, 64}) {
+            TransactionTable table = new TransactionTable();
+            TransactionTokenizer tokenizer = new TransactionTokenizer(table, false);
+            for (int start = 0; start < STATEMENT.length(); start += chunk) {
+                tokenizer.feed(STATEMENT.substring(start, Math.min(STATEMENT.length(), start + chunk)));
+            }
+            tokenizer.finish();
+            assertEquals(expected, records(table), "chunks of " + chunk);
+        }
+    }
+
+    @Test
+    void wrappedAndWalletFields() {
+        TransactionTable table = App.extractTransactions(STATEMENT, App.TRANSACTION_COLUMNS);
+
+        assertEquals("Apr 18,2024", table.getDate(1));
+        assertEquals("Wallets txn has no UTR", table.getUtr(2));
+        assertEquals("PhonePe Wallet", table.getAccount(2));
+        assertEquals("Paid to A very long merchant name continued", table.getDescription(3));
+        assertEquals("T2404171245321", table.getTransactionId(3));
+        assertEquals("412345678903", table.getUtr(3));
+        assertEquals("Debit", table.getType(3));
+        assertEquals("INR", table.getCurrency(3));
+        assertEquals("2,500.00", table.getAmountText(3));
+        assertEquals(250_000, table.getAmountMinor(3));
+    }
+
+    private static List<Map<String, String>> records(TransactionTable table) {
+        List<Map<String, String>> records = new ArrayList<>();
+        for (TransactionRecord record : table.asRecords()) {
+            records.add(record.getData());
+        }
+        return records;
+    }
+}